@@ -0,0 +1,112 @@
+package com.ninja.ghasttasks.bench;
+
+import com.ninja.ghasttasks.GhastTasks;
+import com.ninja.ghasttasks.database.ExecutionStore;
+import com.ninja.ghasttasks.database.MemoryExecutionStore;
+import com.ninja.ghasttasks.managers.TaskManager;
+import com.ninja.ghasttasks.managers.TimeManager;
+import com.ninja.ghasttasks.metrics.Metrics;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.java.JavaPlugin;
+import sun.misc.Unsafe;
+import java.io.File;
+import java.lang.reflect.Field;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Bukkit stand-in for benchmarks: a {@link GhastTasks} that is never loaded by a server.
+ * {@link JavaPlugin} refuses to be constructed outside a plugin class loader, so the
+ * instance is allocated without running constructors and only the state the benchmarked
+ * code reads (config, logger, data folder, metrics and managers) is filled in. The
+ * execution store starts out in memory.
+ */
+public final class BenchPlugin extends GhastTasks {
+    private static final Unsafe UNSAFE = unsafe();
+
+    private FileConfiguration config;
+    private TaskManager taskManager;
+    private TimeManager timeManager;
+    private ExecutionStore executionStore;
+    private Metrics metrics;
+
+    public static BenchPlugin create(File dataFolder, FileConfiguration config) {
+        BenchPlugin plugin = allocate(BenchPlugin.class);
+        plugin.config = config;
+        plugin.metrics = new Metrics(plugin);
+        plugin.executionStore = new MemoryExecutionStore(plugin);
+        Logger logger = Logger.getLogger("GhastTasks-Bench");
+        logger.setLevel(Level.WARNING);
+        inject(JavaPlugin.class, plugin, "dataFolder", dataFolder);
+        injectByType(JavaPlugin.class, plugin, Logger.class, logger);
+        return plugin;}
+
+    /** A config with {@code count} daily tasks spread evenly over the day, one second apart at most. */
+    public static YamlConfiguration tasksConfig(int count) {
+        YamlConfiguration config = new YamlConfiguration();
+        for (int id = 1; id <= count; id++) {
+            String path = "tasks." + id;
+            config.set(path + ".time", LocalTime.ofSecondOfDay((long) (id - 1) * 86_400 / count).toString());
+            config.set(path + ".task-msg", "Task " + id + " is in");
+            config.set(path + ".commands", List.of("[console] say task " + id, "give @a diamond 1"));}
+        return config;}
+
+    /** A {@link TimeManager} with only its zone set; its scheduler thread is never started. */
+    public static TimeManager timeManager(ZoneId zone) {
+        TimeManager manager = allocate(TimeManager.class);
+        inject(TimeManager.class, manager, "zone", zone);
+        return manager;}
+
+    public void setTaskManager(TaskManager taskManager) {this.taskManager = taskManager;}
+
+    public void setTimeManager(TimeManager timeManager) {this.timeManager = timeManager;}
+
+    public void setExecutionStore(ExecutionStore executionStore) {this.executionStore = executionStore;}
+
+    @Override
+    public FileConfiguration getConfig() {return config;}
+
+    @Override
+    public TaskManager getTaskManager() {return taskManager;}
+
+    @Override
+    public TimeManager getTimeManager() {return timeManager;}
+
+    @Override
+    public ExecutionStore getExecutionStore() {return executionStore;}
+
+    @Override
+    public Metrics getMetrics() {return metrics;}
+
+    private static <T> T allocate(Class<T> type) {
+        try {return type.cast(UNSAFE.allocateInstance(type));}
+        catch (InstantiationException e) {throw new IllegalStateException("Cannot allocate " + type.getName(), e);}}
+
+    private static void inject(Class<?> owner, Object target, String name, Object value) {
+        try {
+            Field field = owner.getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {throw new IllegalStateException("Cannot set " + owner.getSimpleName() + "." + name, e);}}
+
+    private static void injectByType(Class<?> owner, Object target, Class<?> type, Object value) {
+        for (Field field : owner.getDeclaredFields()) {
+            if (!field.getType().isAssignableFrom(type) || field.getType() == Object.class) {continue;}
+            try {
+                field.setAccessible(true);
+                field.set(target, value);
+                return;
+            } catch (ReflectiveOperationException e) {throw new IllegalStateException("Cannot set " + owner.getSimpleName() + "." + field.getName(), e);}}
+        throw new IllegalStateException(owner.getSimpleName() + " has no " + type.getSimpleName() + " field");}
+
+    private static Unsafe unsafe() {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            return (Unsafe) field.get(null);
+        } catch (ReflectiveOperationException e) {throw new ExceptionInInitializerError(e);}}
+}
@@ -0,0 +1,87 @@
+package com.ninja.ghasttasks.database;
+
+import com.ninja.ghasttasks.bench.BenchPlugin;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Each {@link ExecutionStore} backend, the file-backed ones in a temporary directory: the
+ * in-memory checks made on every scheduler tick, and execution records written through
+ * the batching write queue until they are committed. The {@code jdbc} case runs the
+ * generic JDBC store against a SQLite file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DatabaseBenchmark {
+    private static final int TASKS = 1000;
+    private static final int BATCH = 64;
+
+    private Path dataFolder;
+    @Param({"sqlite", "jdbc", "memory"})
+    public String type;
+
+    private ExecutionStore database;
+    private ZonedDateTime slot;
+    private int nextTask;
+
+    @Setup
+    public void setUp() throws Exception {
+        dataFolder = Files.createTempDirectory("ghasttasks-bench");
+        YamlConfiguration config = new YamlConfiguration();
+        config.set("database.type", type);
+        config.set("database.write-batch-size", BATCH);
+        config.set("database.jdbc.url", "jdbc:sqlite:" + dataFolder.resolve("shared.db"));
+        database = ExecutionStore.open(BenchPlugin.create(dataFolder.toFile(), config));
+        slot = ZonedDateTime.now().withNano(0);
+        for (int id = 1; id <= TASKS; id += 2) {database.markTaskExecuted(id, slot);}
+        database.markTaskExecuted(TASKS, slot).join();}
+
+    @TearDown
+    public void tearDown() throws IOException {
+        database.close();
+        try (Stream<Path> files = Files.walk(dataFolder)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());}}
+
+    @Benchmark
+    public boolean hasTaskFired() {return database.hasTaskFired(nextTaskId(), slot);}
+
+    @Benchmark
+    public boolean isTaskExecutedToday() {return database.isTaskExecutedToday(nextTaskId());}
+
+    /** A full write batch, timed until its transaction has committed. */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void markAndCommit() {
+        slot = slot.plusSeconds(1);
+        CompletableFuture<Void> last = null;
+        for (int i = 0; i < BATCH; i++) {last = database.markTaskExecuted(nextTaskId(), slot);}
+        last.join();}
+
+    private int nextTaskId() {
+        nextTask = nextTask % TASKS + 1;
+        return nextTask;}
+}
@@ -0,0 +1,73 @@
+package com.ninja.ghasttasks.managers;
+
+import com.ninja.ghasttasks.models.Task;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The due-set computation behind {@link TimeManager}'s checks: turning the timing wheel one
+ * second and re-arming whatever came due, plus the next-fire lookup used for sleeping and
+ * for the countdown placeholders.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DueSetBenchmark {
+    @Param({"10", "1000", "50000"})
+    public int taskCount;
+
+    private final ZoneId zone = ZoneId.systemDefault();
+    private TimingWheel<Task> wheel;
+    private TaskTimeIndex index;
+    private long now;
+
+    @Setup
+    public void setUp() {
+        List<Task> tasks = new ArrayList<>(taskCount);
+        for (int id = 1; id <= taskCount; id++) {
+            LocalTime time = LocalTime.ofSecondOfDay((long) (id - 1) * 86_400 / taskCount);
+            tasks.add(new Task(id, time, List.of("say task " + id), null));}
+        index = TaskTimeIndex.build(tasks);
+        now = ZonedDateTime.now(zone).toLocalDate().atStartOfDay(zone).toEpochSecond();
+        wheel = new TimingWheel<>(now);
+        ZonedDateTime start = toZoned(now);
+        for (Task task : tasks) {wheel.add(task, task.getSchedule().nextAfter(start).toEpochSecond());}}
+
+    /** One scheduler tick: advance a second, collect the due tasks and arm their next run. */
+    @Benchmark
+    public int tick() {
+        now++;
+        List<TimingWheel.Entry<Task>> due = wheel.advanceTo(now);
+        if (due.isEmpty()) {return 0;}
+        ZonedDateTime current = toZoned(now);
+        for (TimingWheel.Entry<Task> entry : due) {
+            Task task = entry.value();
+            wheel.add(task, task.getSchedule().nextAfter(current).toEpochSecond());}
+        return due.size();}
+
+    @Benchmark
+    public void nextFire(Blackhole blackhole) {
+        blackhole.consume(index.nextAfter(toZoned(now + 1)));}
+
+    private ZonedDateTime toZoned(long epochSecond) {return Instant.ofEpochSecond(epochSecond).atZone(zone);}
+}
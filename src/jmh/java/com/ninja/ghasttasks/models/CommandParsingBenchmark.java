@@ -0,0 +1,40 @@
+package com.ninja.ghasttasks.models;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.util.concurrent.TimeUnit;
+
+/** Parsing of task command lines, done once per line when tasks load or are edited. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandParsingBenchmark {
+    @Param({
+            "give @a diamond 1",
+            "[console] broadcast Daily reward time!",
+            "[PLAYER] msg @a Hello from player!",
+            "[each-player] give {player} diamond 1",
+            "[console] title @a title {\"text\":\"Server Restart\",\"color\":\"red\"}"})
+    public String line;
+
+    @Benchmark
+    public CommandExecution fromCommand() {return CommandExecution.fromCommand(line);}
+
+    @Benchmark
+    public String stripPrefix() {return CommandExecution.stripPrefix(line);}
+
+    /** Prefix, label, arguments and template together, as {@link Task} compiles each line. */
+    @Benchmark
+    public CompiledCommand compile() {return CompiledCommand.compile(line);}
+}
@@ -0,0 +1,55 @@
+package com.ninja.ghasttasks.placeholders;
+
+import com.ninja.ghasttasks.bench.BenchPlugin;
+import com.ninja.ghasttasks.managers.TaskManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import java.time.ZoneId;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link GhastTasksPlaceholders#onPlaceholderRequest} as scoreboards call it: mostly served
+ * from the per-second snapshot, and once per second after the snapshot expires.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlaceholderBenchmark {
+    @Param({"10", "1000", "50000"})
+    public int taskCount;
+
+    @Param({"countdown_formatted", "next_taskmsg", "task_7_countdown"})
+    public String params;
+
+    private GhastTasksPlaceholders placeholders;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchPlugin plugin = BenchPlugin.create(null, BenchPlugin.tasksConfig(taskCount));
+        plugin.setTimeManager(BenchPlugin.timeManager(ZoneId.systemDefault()));
+        plugin.setTaskManager(new TaskManager(plugin));
+        placeholders = new GhastTasksPlaceholders(plugin);}
+
+    /** Snapshot and resolver already cached for the current second. */
+    @Benchmark
+    public String cached() {return placeholders.onPlaceholderRequest(null, params);}
+
+    /** First request after tasks changed: the snapshot and resolver are rebuilt. */
+    @Benchmark
+    public String rebuilt() {
+        placeholders.invalidate();
+        return placeholders.onPlaceholderRequest(null, params);}
+}
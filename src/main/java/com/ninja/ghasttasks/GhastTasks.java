@@ -1,18 +1,30 @@
 package com.ninja.ghasttasks;
 
 import com.ninja.ghasttasks.commands.TaskCommand;
-import com.ninja.ghasttasks.database.DatabaseManager;
+import com.ninja.ghasttasks.database.ExecutionStore;
+import com.ninja.ghasttasks.managers.CommandDispatcher;
+import com.ninja.ghasttasks.managers.ConfigPersister;
+import com.ninja.ghasttasks.managers.ConfigWatcher;
 import com.ninja.ghasttasks.managers.TaskManager;
 import com.ninja.ghasttasks.managers.TimeManager;
+import com.ninja.ghasttasks.metrics.Metrics;
+import com.ninja.ghasttasks.metrics.MetricsHttpServer;
 import com.ninja.ghasttasks.placeholders.GhastTasksPlaceholders;
+import com.ninja.ghasttasks.scheduler.PluginScheduler;
 import org.bukkit.plugin.java.JavaPlugin;
 
 public class GhastTasks extends JavaPlugin {
 
-    private DatabaseManager databaseManager;
+    private PluginScheduler pluginScheduler;
+    private ExecutionStore executionStore;
+    private CommandDispatcher commandDispatcher;
     private TaskManager taskManager;
     private TimeManager timeManager;
     private GhastTasksPlaceholders placeholders;
+    private ConfigWatcher configWatcher;
+    private ConfigPersister configPersister;
+    private Metrics metrics;
+    private MetricsHttpServer metricsServer;
 
     @Override
     public void onEnable() {
@@ -28,11 +40,17 @@ public class GhastTasks extends JavaPlugin {
         saveDefaultConfig();
 
         try {
-            // todo: metrics soon . :)
-            databaseManager = new DatabaseManager(this);
+            pluginScheduler = PluginScheduler.create(this);
+            metrics = new Metrics(this);
+            metricsServer = new MetricsHttpServer(this, metrics);
+            configPersister = new ConfigPersister(this);
+            executionStore = ExecutionStore.open(this);
+            commandDispatcher = new CommandDispatcher(this);
             taskManager = new TaskManager(this);
             timeManager = new TimeManager(this);
-
+            configWatcher = new ConfigWatcher(this);
+            updateConfigWatcher();
+            updateMetricsServer();
 
             getLogger().info("Registering PlaceholderAPI expansion...");
             placeholders = new GhastTasksPlaceholders(this);
@@ -48,7 +66,7 @@ public class GhastTasks extends JavaPlugin {
 
             if (getConfig().getBoolean("debug", false)) {
                 getLogger().info("Debug mode is enabled");
-                getLogger().info("Database file location: " + databaseManager);
+                getLogger().info("Execution store: " + executionStore.getClass().getSimpleName());
                 getLogger().info("Available placeholders:");
                 getLogger().info("  %ghasttasks_next_task_id% - ID of the next scheduled task");
                 getLogger().info("  %ghasttasks_next_task_time% - Time of the next scheduled task");
@@ -81,17 +99,40 @@ public class GhastTasks extends JavaPlugin {
             getLogger().info("PlaceholderAPI expansion unregistered");
         }
 
+        if (configWatcher != null) {
+            configWatcher.stop();
+        }
+        if (metricsServer != null) {
+            metricsServer.stop();
+        }
         if (timeManager != null) {
             timeManager.shutdown();
         }
-        if (databaseManager != null) {
-            databaseManager.close();
+        if (commandDispatcher != null) {
+            commandDispatcher.shutdown();
+        }
+        if (taskManager != null) {
+            taskManager.getLeaseCoordinator().shutdown();
+        }
+        if (configPersister != null) {
+            configPersister.shutdown();
+        }
+        if (executionStore != null) {
+            executionStore.close();
         }
         getLogger().info("GhastTasks has been disabled.");
     }
 
-    public DatabaseManager getDatabaseManager() {
-        return databaseManager;
+    public PluginScheduler getPluginScheduler() {
+        return pluginScheduler;
+    }
+
+    public ExecutionStore getExecutionStore() {
+        return executionStore;
+    }
+
+    public CommandDispatcher getCommandDispatcher() {
+        return commandDispatcher;
     }
 
     public TaskManager getTaskManager() {
@@ -102,13 +143,21 @@ public class GhastTasks extends JavaPlugin {
         return timeManager;
     }
 
+    public ConfigPersister getConfigPersister() {
+        return configPersister;
+    }
+
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
     public GhastTasksPlaceholders getPlaceholders() {
         return placeholders;
     }
 
     public void reloadPlugin() {
         try {
-            reloadConfig();
+            reloadSettings();
             taskManager.reloadTasks();
             getLogger().info("GhastTasks configuration reloaded successfully!");
         } catch (Exception e) {
@@ -116,4 +165,32 @@ public class GhastTasks extends JavaPlugin {
             e.printStackTrace();
         }
     }
+
+    /** Re-reads config.yml and applies every setting except the task list. Pending edits are saved first. */
+    public void reloadSettings() {
+        configPersister.flushNow();
+        reloadConfig();
+        commandDispatcher.loadSettings();
+        commandDispatcher.getProfiler().loadSettings();
+        taskManager.getAdmissionController().loadSettings();
+        taskManager.getLeaseCoordinator().loadSettings();
+        updateConfigWatcher();
+        updateMetricsServer();
+    }
+
+    private void updateConfigWatcher() {
+        if (getConfig().getBoolean("reload.watch-config", false)) {
+            configWatcher.start();
+        } else {
+            configWatcher.stop();
+        }
+    }
+
+    /** Restarts the metrics endpoint so host and port changes apply, or stops it when disabled. */
+    private void updateMetricsServer() {
+        metricsServer.stop();
+        if (getConfig().getBoolean("metrics.http.enabled", false)) {
+            metricsServer.start();
+        }
+    }
 }
\ No newline at end of file
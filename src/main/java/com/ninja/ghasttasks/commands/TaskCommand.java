@@ -1,6 +1,14 @@
 package com.ninja.ghasttasks.commands;
 
 import com.ninja.ghasttasks.GhastTasks;
+import com.ninja.ghasttasks.database.HistoryEntry;
+import com.ninja.ghasttasks.database.HistoryPage;
+import com.ninja.ghasttasks.database.RunOutcome;
+import com.ninja.ghasttasks.managers.CommandProfiler;
+import com.ninja.ghasttasks.managers.TaskTimeIndex;
+import com.ninja.ghasttasks.metrics.LatencyHistogram;
+import com.ninja.ghasttasks.metrics.Metrics;
+import com.ninja.ghasttasks.models.DailySchedule;
 import com.ninja.ghasttasks.models.Task;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
@@ -8,6 +16,8 @@ import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.TabCompleter;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -16,6 +26,8 @@ import java.util.stream.Collectors;
 
 
 public class TaskCommand implements CommandExecutor, TabCompleter {
+    private static final int HISTORY_PAGE_SIZE = 10;
+    private static final DateTimeFormatter HISTORY_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
     private final GhastTasks plugin;
     public TaskCommand(GhastTasks plugin) {
         this.plugin = plugin;
@@ -36,6 +48,9 @@ public class TaskCommand implements CommandExecutor, TabCompleter {
             case "remove": return handleRemove(sender, args);
             case "testtime": return handleTestTime(sender);
             case "placeholders":return handlePlaceholders(sender);
+            case "stats": return handleStats(sender);
+            case "profile": return handleProfile(sender, args);
+            case "history": return handleHistory(sender, args);
             case "help": sendHelp(sender);
                 return true;
             default:
@@ -63,6 +78,9 @@ public class TaskCommand implements CommandExecutor, TabCompleter {
             sender.sendMessage(Component.text("No tasks configured.").color(NamedTextColor.YELLOW));
             return true;}
         sender.sendMessage(Component.text("=== GhastTasks List (" + tasks.size() + " tasks) ===").color(NamedTextColor.GOLD));
+        TaskTimeIndex.NextFire nextFire = plugin.getTaskManager().getNextFire(plugin.getTimeManager().getCurrentServerDateTime());
+        if (nextFire != null) {
+            sender.sendMessage(Component.text("Next up: Task " + nextFire.task().getId() + " at " + DailySchedule.formatTime(nextFire.fireTime().toLocalTime())).color(NamedTextColor.GREEN));}
         List<Task> sortedTasks = tasks.values().stream().sorted((t1, t2) -> Integer.compare(t1.getId(), t2.getId())).collect(Collectors.toList());
         for (Task task : sortedTasks) {
             sender.sendMessage(Component.text("Task ID: " + task.getId()).color(NamedTextColor.AQUA));
@@ -94,12 +112,12 @@ public class TaskCommand implements CommandExecutor, TabCompleter {
             switch (editType) {
                 case "time":
                     if (args.length < 4) {
-                        sender.sendMessage(Component.text("Usage: /ghasttasks edit <task_id> time <HH:MM>").color(NamedTextColor.RED));
+                        sender.sendMessage(Component.text("Usage: /ghasttasks edit <task_id> time <HH:MM[:SS]>").color(NamedTextColor.RED));
                         return true;}
                     String newTime = args[3];
                     if (plugin.getTaskManager().updateTaskTime(taskId, newTime)) {sender.sendMessage(Component.text("Task " + taskId + " time updated to " + newTime).color(NamedTextColor.GREEN));
                     } else {
-                        sender.sendMessage(Component.text("Invalid time format. Use HH:MM format (24-hour).").color(NamedTextColor.RED));}
+                        sender.sendMessage(Component.text("Invalid time format. Use HH:MM or HH:MM:SS format (24-hour).").color(NamedTextColor.RED));}
                     break;
                 case "commands":
                     if (args.length < 5) {
@@ -224,11 +242,110 @@ public class TaskCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage(Component.text("  %ghasttasks_task_1_msg% - Shows task 1's message").color(NamedTextColor.GRAY));
         sender.sendMessage(Component.text("  %ghasttasks_task_3_countdown% - Shows 'Levels Event is in 02:10:04'").color(NamedTextColor.GRAY));
         return true;}
+    private boolean handleStats(CommandSender sender) {
+        if (!sender.hasPermission("ghasttasks.view")) {
+            sender.sendMessage(Component.text("You don't have permission to view statistics.").color(NamedTextColor.RED));
+            return true;}
+        Metrics metrics = plugin.getMetrics();
+        sender.sendMessage(Component.text("=== GhastTasks Statistics ===").color(NamedTextColor.GOLD));
+        sender.sendMessage(Component.text("Tasks:").color(NamedTextColor.AQUA));
+        sender.sendMessage(Component.text("  Loaded: " + metrics.gaugeValue("ghasttasks_tasks_loaded") + ", fired: " + metrics.getTaskFires().get()
+                + ", failed: " + metrics.getTaskFailures().get()).color(NamedTextColor.WHITE));
+        sender.sendMessage(Component.text("  Skipped: " + metrics.getSkipsAlreadyFired().get() + " already run, " + metrics.getSkipsMisfire().get()
+                + " missed, " + metrics.getSkipsRunning().get() + " still running"
+                + (plugin.getTaskManager().getLeaseCoordinator().isEnabled() ? ", " + metrics.getSkipsLease().get() + " run by another server" : "")).color(NamedTextColor.WHITE));
+        sender.sendMessage(Component.text("Commands:").color(NamedTextColor.AQUA));
+        sender.sendMessage(Component.text("  Dispatched: " + metrics.getCommandsDispatched().get() + ", failed: " + metrics.getCommandFailures().get()
+                + ", rejected: " + metrics.getCommandsRejected().get()
+                + ", queued runs: " + metrics.gaugeValue("ghasttasks_dispatch_queue_jobs")).color(NamedTextColor.WHITE));
+        sender.sendMessage(Component.text("  Main thread: " + describeLatency(metrics.getCommandDispatch())).color(NamedTextColor.WHITE));
+        sender.sendMessage(Component.text("Database:").color(NamedTextColor.AQUA));
+        sender.sendMessage(Component.text("  Queries: " + describeLatency(metrics.getDbQuery())).color(NamedTextColor.WHITE));
+        sender.sendMessage(Component.text("  Commits: " + describeLatency(metrics.getDbCommit())).color(NamedTextColor.WHITE));
+        sender.sendMessage(Component.text("  Write queue: " + metrics.gaugeValue("ghasttasks_db_write_queue_depth")).color(NamedTextColor.WHITE));
+        long requests = metrics.getPlaceholderRequests().get();
+        long hits = metrics.getPlaceholderHits().get();
+        sender.sendMessage(Component.text("Placeholders:").color(NamedTextColor.AQUA));
+        sender.sendMessage(Component.text("  Requests: " + requests + ", snapshot hit ratio: "
+                + (requests == 0 ? "N/A" : String.format("%.1f%%", hits * 100.0 / requests))).color(NamedTextColor.WHITE));
+        return true;}
+    private boolean handleProfile(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("ghasttasks.view")) {
+            sender.sendMessage(Component.text("You don't have permission to view statistics.").color(NamedTextColor.RED));
+            return true;}
+        if (args.length < 2) {
+            sender.sendMessage(Component.text("Usage: /ghasttasks profile <task_id>").color(NamedTextColor.RED));
+            return true;}
+        try {
+            int taskId = Integer.parseInt(args[1]);
+            CommandProfiler profiler = plugin.getCommandDispatcher().getProfiler();
+            List<CommandProfiler.CommandStats> stats = profiler.getStats(taskId);
+            if (stats.isEmpty()) {
+                sender.sendMessage(Component.text("No command timings recorded for task " + taskId + " yet.").color(NamedTextColor.YELLOW));
+                return true;}
+            sender.sendMessage(Component.text("=== Task " + taskId + " Command Profile (slow: " + formatNanos(profiler.getSlowThresholdNanos()) + "+) ===").color(NamedTextColor.GOLD));
+            int shown = Math.min(10, stats.size());
+            for (int i = 0; i < shown; i++) {
+                CommandProfiler.CommandStats command = stats.get(i);
+                String source = command.getSource();
+                if (source.length() > 80) {source = source.substring(0, 77) + "...";}
+                sender.sendMessage(Component.text((i + 1) + ". " + source).color(command.isSlow() ? NamedTextColor.RED : NamedTextColor.AQUA));
+                sender.sendMessage(Component.text("   max " + formatNanos(command.getMaxNanos()) + ", avg " + formatNanos(command.getAverageNanos())
+                        + ", last " + formatNanos(command.getLastNanos()) + ", " + command.getRuns() + " runs"
+                        + (command.getSlowRuns() > 0 ? " (" + command.getSlowRuns() + " slow)" : "")).color(NamedTextColor.GRAY));}
+        } catch (NumberFormatException e) {
+            sender.sendMessage(Component.text("Invalid task ID. Must be a number.").color(NamedTextColor.RED));}
+        return true;}
+    private boolean handleHistory(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("ghasttasks.view")) {
+            sender.sendMessage(Component.text("You don't have permission to view task history.").color(NamedTextColor.RED));
+            return true;}
+        if (args.length < 2) {
+            sender.sendMessage(Component.text("Usage: /ghasttasks history <task_id|all> [cursor]").color(NamedTextColor.RED));
+            return true;}
+        Integer taskId;
+        long cursor;
+        try {
+            taskId = args[1].equalsIgnoreCase("all") ? null : Integer.valueOf(args[1]);
+            cursor = args.length > 2 ? Long.parseLong(args[2]) : 0L;
+        } catch (NumberFormatException e) {
+            sender.sendMessage(Component.text("Invalid task ID or cursor. Must be a number.").color(NamedTextColor.RED));
+            return true;}
+        String scope = taskId == null ? "all" : taskId.toString();
+        plugin.getExecutionStore().getHistory(taskId, cursor, HISTORY_PAGE_SIZE).whenComplete((page, throwable) ->
+                plugin.getPluginScheduler().runFor(sender, () -> {
+                    if (throwable != null) {
+                        sender.sendMessage(Component.text("Failed to read task history. Check console for details.").color(NamedTextColor.RED));
+                    } else {sendHistory(sender, scope, page);}}));
+        return true;}
+    private void sendHistory(CommandSender sender, String scope, HistoryPage page) {
+        if (page.entries().isEmpty()) {
+            sender.sendMessage(Component.text("No recorded runs" + (scope.equals("all") ? "." : " for task " + scope + ".")).color(NamedTextColor.YELLOW));
+            return;}
+        sender.sendMessage(Component.text("=== Task History (" + (scope.equals("all") ? "all tasks" : "task " + scope) + ") ===").color(NamedTextColor.GOLD));
+        for (HistoryEntry entry : page.entries()) {
+            RunOutcome outcome = entry.result().outcome();
+            NamedTextColor color = outcome == RunOutcome.SUCCESS ? NamedTextColor.GREEN : outcome == RunOutcome.PARTIAL ? NamedTextColor.YELLOW : NamedTextColor.RED;
+            String when = Instant.ofEpochSecond(entry.fireEpoch()).atZone(plugin.getTimeManager().getZone()).format(HISTORY_TIME);
+            sender.sendMessage(Component.text("Task " + entry.taskId() + " at " + when + " - " + outcome.name().toLowerCase() + ", "
+                    + entry.result().executedCount() + "/" + entry.result().commandCount() + " commands in " + entry.result().durationMs() + "ms").color(color));}
+        if (page.hasMore()) {
+            sender.sendMessage(Component.text("Older runs: /ghasttasks history " + scope + " " + page.nextCursor()).color(NamedTextColor.GRAY));}}
+    private static String describeLatency(LatencyHistogram histogram) {
+        long count = histogram.getCount();
+        if (count == 0) {return "no samples";}
+        return count + " samples, avg " + formatNanos(histogram.getSumNanos() / count)
+                + ", p50 <= " + formatBound(histogram.quantileUpperBound(0.5)) + ", p99 <= " + formatBound(histogram.quantileUpperBound(0.99));}
+    private static String formatBound(long nanos) {return nanos < 0 ? "10s+" : formatNanos(nanos);}
+    private static String formatNanos(long nanos) {
+        if (nanos < 1_000_000L) {return String.format("%.0fµs", nanos / 1_000.0);}
+        if (nanos < 1_000_000_000L) {return String.format("%.1fms", nanos / 1_000_000.0);}
+        return String.format("%.2fs", nanos / 1_000_000_000.0);}
     private void sendHelp(CommandSender sender) {
         sender.sendMessage(Component.text("=== GhastTasks Commands ===").color(NamedTextColor.GOLD));
         sender.sendMessage(Component.text("/ghasttasks reload - Reload configuration").color(NamedTextColor.WHITE));
         sender.sendMessage(Component.text("/ghasttasks list - List all tasks").color(NamedTextColor.WHITE));
-        sender.sendMessage(Component.text("/ghasttasks edit <id> time <HH:MM> - Edit task time").color(NamedTextColor.WHITE));
+        sender.sendMessage(Component.text("/ghasttasks edit <id> time <HH:MM[:SS]> - Edit task time").color(NamedTextColor.WHITE));
         sender.sendMessage(Component.text("/ghasttasks edit <id> commands add <command> - Add command").color(NamedTextColor.WHITE));
         sender.sendMessage(Component.text("/ghasttasks edit <id> commands remove <index> - Remove command").color(NamedTextColor.WHITE));
         sender.sendMessage(Component.text("/ghasttasks edit <id> message <text> - Set task message").color(NamedTextColor.WHITE));
@@ -236,20 +353,25 @@ public class TaskCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage(Component.text("/ghasttasks remove <id> - Remove task").color(NamedTextColor.WHITE));
         sender.sendMessage(Component.text("/ghasttasks testtime - Test system time and database").color(NamedTextColor.WHITE));
         sender.sendMessage(Component.text("/ghasttasks placeholders - Show available placeholders").color(NamedTextColor.WHITE));
+        sender.sendMessage(Component.text("/ghasttasks stats - Show execution statistics").color(NamedTextColor.WHITE));
+        sender.sendMessage(Component.text("/ghasttasks profile <id> - Show a task's slowest commands").color(NamedTextColor.WHITE));
+        sender.sendMessage(Component.text("/ghasttasks history <id|all> - Show past runs").color(NamedTextColor.WHITE));
         sender.sendMessage(Component.text("/ghasttasks help - Show this help").color(NamedTextColor.WHITE));}
     @Override
     public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] args) {List<String> completions = new ArrayList<>();
         if (!sender.hasPermission("ghasttasks.use")) {
             return completions;}
         if (args.length == 1) {
-            List<String> subCommands = Arrays.asList("reload", "list", "edit", "test", "remove", "testtime", "placeholders", "help");
+            List<String> subCommands = Arrays.asList("reload", "list", "edit", "test", "remove", "testtime", "placeholders", "stats", "profile", "history", "help");
             String input = args[0].toLowerCase();
             for (String subCommand : subCommands) {
                 if (subCommand.startsWith(input)) {completions.add(subCommand);}}
         } else if (args.length == 2 && !args[0].equalsIgnoreCase("reload") &&
                 !args[0].equalsIgnoreCase("list") && !args[0].equalsIgnoreCase("help") &&
-                !args[0].equalsIgnoreCase("testtime") && !args[0].equalsIgnoreCase("placeholders")) {
+                !args[0].equalsIgnoreCase("testtime") && !args[0].equalsIgnoreCase("placeholders") &&
+                !args[0].equalsIgnoreCase("stats")) {
             String input = args[1];
+            if (args[0].equalsIgnoreCase("history") && "all".startsWith(input.toLowerCase())) {completions.add("all");}
             for (Integer taskId : plugin.getTaskManager().getAllTasks().keySet()) {
                 String taskIdStr = taskId.toString();
                 if (taskIdStr.startsWith(input)) {completions.add(taskIdStr);}}
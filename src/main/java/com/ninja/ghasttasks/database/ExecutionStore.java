@@ -0,0 +1,101 @@
+package com.ninja.ghasttasks.database;
+
+import com.ninja.ghasttasks.GhastTasks;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Where task runs are recorded: the last slot each task fired for, used to avoid running a
+ * slot twice, and the run history. Every backend keeps the last-run state in memory, so the
+ * checks made on each scheduler tick never wait on storage; writes and history reads are
+ * asynchronous. The backend is chosen by {@code database.type}, see {@link #open(GhastTasks)}.
+ */
+public interface ExecutionStore {
+    /** The last run of {@code taskId}, or null if it never ran. */
+    TaskState getTaskState(int taskId);
+
+    /** Records that {@code taskId} ran for the scheduled {@code slot}, adding {@code result} to its history. */
+    CompletableFuture<Void> markTaskExecuted(int taskId, ZonedDateTime slot, RunResult result);
+
+    /** Forgets the state of a task that was removed from the config. */
+    CompletableFuture<Void> removeTaskRecords(int taskId);
+
+    /**
+     * Reads up to {@code limit} history rows older than {@code beforeId} (0 for the newest),
+     * newest first, for one task or for all tasks when {@code taskId} is null.
+     */
+    CompletableFuture<HistoryPage> getHistory(Integer taskId, long beforeId, int limit);
+
+    /** Writes what is still pending and releases the backend. */
+    void close();
+
+    /**
+     * Claims the run of {@code taskId} for {@code slot} on behalf of {@code owner} for the
+     * next {@code leaseSeconds}, for servers sharing this store. Completes with true when
+     * {@code owner} may run the slot: no one claimed it yet, or the last claim expired
+     * without the run being recorded. A slot stays claimed for good once its run is
+     * recorded by {@link #markTaskExecuted(int, ZonedDateTime, RunResult)}. A store that
+     * cannot be shared grants every claim.
+     */
+    default CompletableFuture<Boolean> tryAcquireLease(int taskId, ZonedDateTime slot, String owner, long leaseSeconds) {
+        return CompletableFuture.completedFuture(true);}
+
+    /**
+     * Pushes the expiry of {@code owner}'s unfinished lease on {@code taskId} for
+     * {@code slot} to {@code leaseSeconds} from now, while its run is still going. Completes
+     * with false when {@code owner} no longer holds it.
+     */
+    default CompletableFuture<Boolean> renewLease(int taskId, ZonedDateTime slot, String owner, long leaseSeconds) {
+        return CompletableFuture.completedFuture(true);}
+
+    /** Execution records accepted but not yet written. */
+    default int getPendingWrites() {return 0;}
+
+    /** The epoch second of the last slot {@code taskId} fired for, or null if it never fired. */
+    default Long getLastFireEpoch(int taskId) {
+        TaskState state = getTaskState(taskId);
+        return state == null ? null : state.lastFireEpoch();}
+
+    /** Whether {@code taskId} already ran for the scheduled {@code slot} or a later one. */
+    default boolean hasTaskFired(int taskId, ZonedDateTime slot) {
+        TaskState state = getTaskState(taskId);
+        return state != null && state.lastFireEpoch() >= slot.toEpochSecond();}
+
+    /** Whether the last slot {@code taskId} fired for falls on today's date. */
+    default boolean isTaskExecutedToday(int taskId) {
+        TaskState state = getTaskState(taskId);
+        if (state == null) {return false;}
+        ZoneId zone = ZoneId.systemDefault();
+        return LocalDate.ofInstant(Instant.ofEpochSecond(state.lastFireEpoch()), zone).equals(LocalDate.now(zone));}
+
+    default CompletableFuture<Boolean> hasTaskExecutedToday(int taskId) {
+        return CompletableFuture.completedFuture(isTaskExecutedToday(taskId));}
+
+    default CompletableFuture<Void> markTaskExecuted(int taskId) {
+        return markTaskExecuted(taskId, ZonedDateTime.now());}
+
+    default CompletableFuture<Void> markTaskExecuted(int taskId, ZonedDateTime slot) {
+        return markTaskExecuted(taskId, slot, RunResult.UNKNOWN);}
+
+    /**
+     * Opens the backend named by {@code database.type}: {@code sqlite} (the default), a local
+     * file; {@code jdbc}, any JDBC database shared by several servers; or {@code memory},
+     * which keeps nothing across restarts.
+     */
+    static ExecutionStore open(GhastTasks plugin) throws SQLException {
+        String type = plugin.getConfig().getString("database.type", "sqlite").toLowerCase(Locale.ROOT);
+        switch (type) {
+            case "sqlite" -> {return new SqliteExecutionStore(plugin);}
+            case "jdbc" -> {return new JdbcExecutionStore(plugin);}
+            case "memory" -> {
+                plugin.getLogger().warning("database.type is 'memory': task runs are not kept across restarts");
+                return new MemoryExecutionStore(plugin);}
+            default -> {
+                plugin.getLogger().warning("Unknown database.type '" + type + "', using sqlite");
+                return new SqliteExecutionStore(plugin);}}}
+}
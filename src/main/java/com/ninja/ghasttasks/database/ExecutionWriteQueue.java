@@ -0,0 +1,108 @@
+package com.ninja.ghasttasks.database;
+
+import com.ninja.ghasttasks.GhastTasks;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Write-behind buffer for execution records. Records are collected in memory and
+ * written in one transaction per batch, either when {@code database.write-batch-size}
+ * records are pending or every {@code database.write-flush-interval-ms}. A batch that fails
+ * is tried again up to {@code database.write-retries} times, since a lost record lets the
+ * slot run again and, with coordination, lets its lease expire unfinished.
+ */
+final class ExecutionWriteQueue {
+    @FunctionalInterface
+    interface BatchWriter {
+        void write(List<ExecutionRecord> batch) throws SQLException;
+    }
+
+    record ExecutionRecord(int taskId, long fireEpoch, RunResult result, long finishedAtMillis, CompletableFuture<Void> completion) {}
+
+    private final GhastTasks plugin;
+    private final BatchWriter writer;
+    private final ConcurrentLinkedQueue<ExecutionRecord> pending = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService flusher;
+    private final int batchSize;
+    private final int retries;
+
+    ExecutionWriteQueue(GhastTasks plugin, BatchWriter writer) {
+        this.plugin = plugin;
+        this.writer = writer;
+        this.batchSize = Math.max(1, plugin.getConfig().getInt("database.write-batch-size", 64));
+        this.retries = Math.max(0, plugin.getConfig().getInt("database.write-retries", 3));
+        long intervalMs = Math.max(50L, plugin.getConfig().getLong("database.write-flush-interval-ms", 1000L));
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "GhastTasks-DB-Writer");
+            thread.setDaemon(true);
+            return thread;});
+        flusher.scheduleWithFixedDelay(this::flush, intervalMs, intervalMs, TimeUnit.MILLISECONDS);}
+
+    CompletableFuture<Void> enqueue(int taskId, long fireEpoch, RunResult result) {
+        ExecutionRecord record = new ExecutionRecord(taskId, fireEpoch, result, System.currentTimeMillis(), new CompletableFuture<>());
+        pending.add(record);
+        if (depth.incrementAndGet() >= batchSize && flushScheduled.compareAndSet(false, true)) {
+            try {flusher.execute(() -> {flushScheduled.set(false);flush();});}
+            catch (Exception e) {flushScheduled.set(false);}}
+        return record.completion();}
+
+    /** Drops queued records for {@code taskId} so a removed task is not written back. */
+    void discard(int taskId) {
+        int[] dropped = {0};
+        pending.removeIf(record -> {
+            if (record.taskId() != taskId) {return false;}
+            record.completion().complete(null);
+            dropped[0]++;
+            return true;});
+        if (dropped[0] > 0) {depth.addAndGet(-dropped[0]);}}
+
+    int getDepth() {return depth.get();}
+
+    private void flush() {
+        while (!pending.isEmpty()) {
+            List<ExecutionRecord> batch = new ArrayList<>(batchSize);
+            ExecutionRecord record;
+            while (batch.size() < batchSize && (record = pending.poll()) != null) {batch.add(record);}
+            if (batch.isEmpty()) {return;}
+            depth.addAndGet(-batch.size());
+            try {
+                writeWithRetries(batch);
+                for (ExecutionRecord written : batch) {written.completion().complete(null);}
+            } catch (Exception e) {
+                plugin.getLogger().severe("Failed to write " + batch.size() + " execution records: " + e.getMessage());
+                for (ExecutionRecord failed : batch) {failed.completion().completeExceptionally(e);}}}}
+
+    /** Each attempt is its own transaction, so a retry never sees half of a failed one. */
+    private void writeWithRetries(List<ExecutionRecord> batch) throws Exception {
+        for (int attempt = 0; ; attempt++) {
+            try {
+                writer.write(batch);
+                return;
+            } catch (SQLException e) {
+                if (attempt >= retries) {throw e;}
+                plugin.getLogger().warning("Writing " + batch.size() + " execution records failed (" + e.getMessage() + "), retrying");
+                Thread.sleep(200L << attempt);}}}
+
+    /** Flushes everything still queued and stops the writer, waiting at most {@code timeoutMs}. */
+    void shutdown(long timeoutMs) {
+        try {flusher.execute(this::flush);} catch (RejectedExecutionException ignored) {}
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS)) {
+                plugin.getLogger().warning("Timed out draining execution records, " + depth.get() + " still pending");
+                flusher.shutdownNow();}
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            flusher.shutdownNow();}}
+}
@@ -0,0 +1,17 @@
+package com.ninja.ghasttasks.database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * One row of {@code task_history}. {@code id} increases with every recorded run and is the
+ * cursor for keyset pagination; {@code fireEpoch} is the scheduled slot the run was for.
+ */
+public record HistoryEntry(long id, int taskId, long fireEpoch, long finishedAtMillis, RunResult result) {
+    /** The {@code task_history} columns {@link #read(ResultSet)} expects, in order. */
+    static final String COLUMNS = "id, task_id, fire_epoch, finished_at, duration_ms, command_count, executed_count, outcome";
+
+    static HistoryEntry read(ResultSet rs) throws SQLException {
+        RunResult result = new RunResult(RunOutcome.fromName(rs.getString(8)), rs.getInt(6), rs.getInt(7), rs.getLong(5));
+        return new HistoryEntry(rs.getLong(1), rs.getInt(2), rs.getLong(3), rs.getLong(4), result);}
+}
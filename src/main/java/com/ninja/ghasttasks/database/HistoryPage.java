@@ -0,0 +1,11 @@
+package com.ninja.ghasttasks.database;
+
+import java.util.List;
+
+/**
+ * A page of history, newest first. Pass {@code nextCursor} back as the {@code beforeId} of
+ * the next query to continue; it is 0 when there are no older rows.
+ */
+public record HistoryPage(List<HistoryEntry> entries, long nextCursor) {
+    public boolean hasMore() {return nextCursor > 0;}
+}
@@ -0,0 +1,411 @@
+package com.ninja.ghasttasks.database;
+
+import com.ninja.ghasttasks.GhastTasks;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * An {@link ExecutionStore} on any JDBC database, for networks where several servers share
+ * one database. Connections come from a pool of at most {@code database.jdbc.pool-size},
+ * opened on demand and replaced after an error. Records go through the same write-behind
+ * queue as the SQLite store and are written one batch per transaction.
+ *
+ * <p>The SQL sticks to what H2, MySQL/MariaDB, PostgreSQL and SQLite have in common; the
+ * only per-database difference is how the history id column is generated. Pointing
+ * {@code database.jdbc.url} at a SQLite file uses the same tables as the SQLite store.
+ */
+public class JdbcExecutionStore implements ExecutionStore {
+    private final GhastTasks plugin;
+    private final String url;
+    private final String username;
+    private final String password;
+    private final long acquireTimeoutMs;
+    private final BlockingQueue<PooledConnection> idle;
+    private final Semaphore permits;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("GhastTasks-DB-", 0).factory());
+    private final Map<Integer, TaskState> states = new ConcurrentHashMap<>();
+    private final ExecutionWriteQueue writeQueue;
+    private final ScheduledExecutorService maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "GhastTasks-DB-Maintenance");
+        thread.setDaemon(true);
+        return thread;});
+
+    public JdbcExecutionStore(GhastTasks plugin) throws SQLException {
+        this.plugin = plugin;
+        this.url = plugin.getConfig().getString("database.jdbc.url", "");
+        this.username = plugin.getConfig().getString("database.jdbc.username", "");
+        this.password = plugin.getConfig().getString("database.jdbc.password", "");
+        this.acquireTimeoutMs = Math.max(1L, plugin.getConfig().getLong("database.jdbc.connection-timeout-ms", 5000L));
+        int poolSize = Math.max(1, plugin.getConfig().getInt("database.jdbc.pool-size", 4));
+        this.idle = new ArrayBlockingQueue<>(poolSize);
+        this.permits = new Semaphore(poolSize, true);
+        if (url == null || url.isBlank()) {throw new SQLException("database.type is 'jdbc' but database.jdbc.url is not set");}
+        loadDriver(plugin.getConfig().getString("database.jdbc.driver", ""));
+        createTables();
+        loadTaskStates();
+        plugin.getLogger().info("Using JDBC database " + describe() + " with up to " + poolSize + " connection(s)");
+        this.writeQueue = new ExecutionWriteQueue(plugin, this::writeExecutionBatch);
+        scheduleRetention();}
+
+    /** Registers a driver that is not picked up automatically, e.g. one shaded into another plugin. */
+    private void loadDriver(String driverClass) throws SQLException {
+        if (driverClass == null || driverClass.isBlank()) {return;}
+        try {Class.forName(driverClass);}
+        catch (ClassNotFoundException e) {throw new SQLException("JDBC driver " + driverClass + " is not on the classpath", e);}}
+
+    /** The URL without its query string, which is where credentials tend to end up. */
+    private String describe() {
+        int query = url.indexOf('?');
+        return query < 0 ? url : url.substring(0, query);}
+
+    /**
+     * Runs {@code work} on a pooled connection, waiting at most
+     * {@code database.jdbc.connection-timeout-ms} for one. A connection that threw anything
+     * is closed rather than returned, so a dropped link is replaced on the next call.
+     */
+    private <T> T withConnection(SqlWork<T> work) throws SQLException {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after " + acquireTimeoutMs + "ms waiting for a database connection");}
+        } catch (InterruptedException e) {Thread.currentThread().interrupt();throw new SQLException("Interrupted waiting for a database connection", e);}
+        PooledConnection pooled = idle.poll();
+        boolean returned = false;
+        try {
+            if (pooled == null || pooled.isClosed()) {pooled = openConnection();}
+            T result = work.run(pooled);
+            returned = idle.offer(pooled);
+            return result;
+        } finally {
+            if (!returned && pooled != null) {
+                try {pooled.close();} catch (SQLException ignored) {}}
+            permits.release();}}
+
+    private PooledConnection openConnection() throws SQLException {
+        if (plugin.getConfig().getBoolean("debug", false)) {
+            plugin.getLogger().info("Opening JDBC connection to " + describe());}
+        Connection connection = username == null || username.isEmpty()
+                ? DriverManager.getConnection(url)
+                : DriverManager.getConnection(url, username, password);
+        return new PooledConnection(connection, false);}
+
+    private <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, executor);}
+
+    /** Creates the tables that are missing. Existing ones, e.g. from the SQLite store, are used as they are. */
+    private void createTables() throws SQLException {
+        withConnection(db -> {
+            Connection connection = db.connection();
+            DatabaseMetaData meta = connection.getMetaData();
+            try (Statement stmt = connection.createStatement()) {
+                if (!tableExists(meta, "task_state")) {
+                    stmt.execute("""
+                        CREATE TABLE task_state (
+                            task_id INTEGER NOT NULL PRIMARY KEY,
+                            last_fire_epoch BIGINT NOT NULL,
+                            last_outcome VARCHAR(16) NOT NULL
+                        )
+                        """);
+                    plugin.getLogger().info("Table 'task_state' created");}
+                if (!tableExists(meta, "task_history")) {
+                    stmt.execute("""
+                        CREATE TABLE task_history (
+                            id %s,
+                            task_id INTEGER NOT NULL,
+                            fire_epoch BIGINT NOT NULL,
+                            finished_at BIGINT NOT NULL,
+                            duration_ms BIGINT NOT NULL,
+                            command_count INTEGER NOT NULL,
+                            executed_count INTEGER NOT NULL,
+                            outcome VARCHAR(16) NOT NULL
+                        )
+                        """.formatted(identityColumn(meta.getDatabaseProductName())));
+                    stmt.execute("CREATE INDEX idx_history_task ON task_history (task_id, id)");
+                    plugin.getLogger().info("Table 'task_history' created");}
+                if (!tableExists(meta, "task_lease")) {
+                    stmt.execute("""
+                        CREATE TABLE task_lease (
+                            task_id INTEGER NOT NULL,
+                            fire_epoch BIGINT NOT NULL,
+                            owner VARCHAR(64) NOT NULL,
+                            expires_at BIGINT NOT NULL,
+                            completed INTEGER NOT NULL DEFAULT 0,
+                            PRIMARY KEY (task_id, fire_epoch)
+                        )
+                        """);
+                    plugin.getLogger().info("Table 'task_lease' created");}}
+            if (!connection.getAutoCommit()) {connection.commit();}
+            return null;});}
+
+    /** Databases fold unquoted names to different cases, so all three spellings are tried. */
+    private static boolean tableExists(DatabaseMetaData meta, String name) throws SQLException {
+        for (String candidate : new String[] {name, name.toUpperCase(Locale.ROOT), name.toLowerCase(Locale.ROOT)}) {
+            try (ResultSet rs = meta.getTables(null, null, candidate, new String[] {"TABLE"})) {
+                if (rs.next()) {return true;}}}
+        return false;}
+
+    /** An auto-generated, increasing primary key, which keyset pagination relies on. */
+    private static String identityColumn(String product) {
+        String name = product == null ? "" : product.toLowerCase(Locale.ROOT);
+        if (name.contains("sqlite")) {return "INTEGER PRIMARY KEY AUTOINCREMENT";}
+        if (name.contains("mysql") || name.contains("mariadb")) {return "BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY";}
+        return "BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY";}
+
+    private void loadTaskStates() throws SQLException {
+        int loaded = withConnection(db -> {
+            PreparedStatement stmt = db.prepare("SELECT task_id, last_fire_epoch, last_outcome FROM task_state");
+            int count = 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {states.put(rs.getInt(1), new TaskState(rs.getLong(2), RunOutcome.fromName(rs.getString(3))));count++;}}
+            return count;});
+        plugin.getLogger().info("Loaded last run state for " + loaded + " tasks");}
+
+    @Override
+    public TaskState getTaskState(int taskId) {return states.get(taskId);}
+
+    @Override
+    public CompletableFuture<Void> markTaskExecuted(int taskId, ZonedDateTime slot, RunResult result) {
+        long fireEpoch = slot.toEpochSecond();
+        states.merge(taskId, new TaskState(fireEpoch, result.outcome()), TaskState::latest);
+        return writeQueue.enqueue(taskId, fireEpoch, result);}
+
+    /**
+     * Writes a batch in one transaction. Without a portable upsert, the state rows are
+     * updated in one batch first, and only tasks that matched nothing are inserted. Another
+     * server may insert the same task in between, so each insert runs behind a savepoint:
+     * on a key clash it is rolled back alone and the update retried, rather than failing the
+     * whole batch. The update never moves a row back to an older slot.
+     */
+    private void writeExecutionBatch(List<ExecutionWriteQueue.ExecutionRecord> batch) throws SQLException {
+        long started = System.nanoTime();
+        Map<Integer, ExecutionWriteQueue.ExecutionRecord> latest = new LinkedHashMap<>();
+        for (ExecutionWriteQueue.ExecutionRecord record : batch) {
+            latest.merge(record.taskId(), record, (current, next) -> next.fireEpoch() >= current.fireEpoch() ? next : current);}
+        withConnection(db -> {
+            Connection connection = db.connection();
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                List<ExecutionWriteQueue.ExecutionRecord> records = new ArrayList<>(latest.values());
+                PreparedStatement update = db.prepare("UPDATE task_state SET last_fire_epoch = ?, last_outcome = ? WHERE task_id = ? AND last_fire_epoch <= ?");
+                for (ExecutionWriteQueue.ExecutionRecord record : records) {
+                    bindStateUpdate(update, record);update.addBatch();}
+                int[] updated = update.executeBatch();
+                PreparedStatement insert = db.prepare("INSERT INTO task_state (task_id, last_fire_epoch, last_outcome) VALUES (?, ?, ?)");
+                for (int i = 0; i < records.size(); i++) {
+                    if (updated[i] > 0) {continue;} // 0, or SUCCESS_NO_INFO from drivers that do not count
+                    ExecutionWriteQueue.ExecutionRecord record = records.get(i);
+                    Savepoint savepoint = connection.setSavepoint();
+                    try {
+                        insert.setInt(1, record.taskId());insert.setLong(2, record.fireEpoch());insert.setString(3, record.result().outcome().name());
+                        insert.executeUpdate();
+                    } catch (SQLException e) {
+                        if (!isDuplicateKey(e)) {throw e;}
+                        connection.rollback(savepoint);
+                        bindStateUpdate(update, record);update.executeUpdate();}}
+                PreparedStatement historyStmt = db.prepare("INSERT INTO task_history (task_id, fire_epoch, finished_at, duration_ms, command_count, executed_count, outcome) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?)");
+                for (ExecutionWriteQueue.ExecutionRecord record : batch) {
+                    RunResult result = record.result();
+                    historyStmt.setInt(1, record.taskId());historyStmt.setLong(2, record.fireEpoch());historyStmt.setLong(3, record.finishedAtMillis());
+                    historyStmt.setLong(4, result.durationMs());historyStmt.setInt(5, result.commandCount());historyStmt.setInt(6, result.executedCount());
+                    historyStmt.setString(7, result.outcome().name());historyStmt.addBatch();}
+                historyStmt.executeBatch();
+                if (plugin.getConfig().getBoolean("coordination.enabled", false)) {
+                    PreparedStatement leaseStmt = db.prepare("UPDATE task_lease SET completed = 1 WHERE task_id = ? AND fire_epoch = ?");
+                    for (ExecutionWriteQueue.ExecutionRecord record : batch) {
+                        leaseStmt.setInt(1, record.taskId());leaseStmt.setLong(2, record.fireEpoch());leaseStmt.addBatch();}
+                    leaseStmt.executeBatch();}
+                connection.commit();
+                plugin.getMetrics().getDbCommit().recordSince(started);
+                plugin.getLogger().info("Marked " + batch.size() + " task execution(s) as executed");
+            } catch (SQLException e) {
+                connection.rollback();throw e;
+            } finally {connection.setAutoCommit(autoCommit);}
+            return null;});}
+
+    private static void bindStateUpdate(PreparedStatement update, ExecutionWriteQueue.ExecutionRecord record) throws SQLException {
+        update.setLong(1, record.fireEpoch());update.setString(2, record.result().outcome().name());
+        update.setInt(3, record.taskId());update.setLong(4, record.fireEpoch());}
+
+    /**
+     * The first claim is a plain insert, which the primary key lets only one server win.
+     * Only when it fails is an expired, unfinished lease taken over with a conditional
+     * update, which again only one server can match.
+     */
+    @Override
+    public CompletableFuture<Boolean> tryAcquireLease(int taskId, ZonedDateTime slot, String owner, long leaseSeconds) {
+        long fireEpoch = slot.toEpochSecond();
+        return supplyAsync(() -> {
+            long now = System.currentTimeMillis() / 1000L;
+            try {
+                return withConnection(db -> {
+                    PreparedStatement insert = db.prepare("INSERT INTO task_lease (task_id, fire_epoch, owner, expires_at, completed) VALUES (?, ?, ?, ?, 0)");
+                    insert.setInt(1, taskId);insert.setLong(2, fireEpoch);insert.setString(3, owner);insert.setLong(4, now + leaseSeconds);
+                    try {
+                        insert.executeUpdate();
+                        return true;
+                    } catch (SQLException e) {
+                        if (!isDuplicateKey(e)) {throw e;}}
+                    PreparedStatement takeOver = db.prepare("UPDATE task_lease SET owner = ?, expires_at = ? "
+                            + "WHERE task_id = ? AND fire_epoch = ? AND completed = 0 AND (expires_at < ? OR owner = ?)");
+                    takeOver.setString(1, owner);takeOver.setLong(2, now + leaseSeconds);takeOver.setInt(3, taskId);
+                    takeOver.setLong(4, fireEpoch);takeOver.setLong(5, now);takeOver.setString(6, owner);
+                    return takeOver.executeUpdate() > 0;});
+            } catch (SQLException e) {
+                throw new IllegalStateException("Could not claim task " + taskId + ": " + e.getMessage(), e);}});}
+
+    /**
+     * Whether {@code e} is a unique key clash rather than another integrity error such as a
+     * NOT NULL or CHECK violation. PostgreSQL and H2 report SQLState {@code 23505};
+     * MySQL/MariaDB report {@code 23000} with vendor code 1062. The SQLite driver sets no
+     * SQLState, only the {@code SQLITE_CONSTRAINT} code (19), so there the kind of constraint
+     * can only be told from SQLite's own wording.
+     */
+    private static boolean isDuplicateKey(SQLException e) {
+        String state = e.getSQLState();
+        if ("23505".equals(state)) {return true;}
+        if (e.getErrorCode() == 1062 && ("23000".equals(state) || e instanceof SQLIntegrityConstraintViolationException)) {return true;}
+        return state == null && e.getErrorCode() == 19 && e.getMessage() != null && e.getMessage().contains("UNIQUE constraint failed");}
+
+    @Override
+    public CompletableFuture<Boolean> renewLease(int taskId, ZonedDateTime slot, String owner, long leaseSeconds) {
+        long fireEpoch = slot.toEpochSecond();
+        return supplyAsync(() -> {
+            try {
+                return withConnection(db -> {
+                    PreparedStatement stmt = db.prepare("UPDATE task_lease SET expires_at = ? WHERE task_id = ? AND fire_epoch = ? AND owner = ? AND completed = 0");
+                    stmt.setLong(1, System.currentTimeMillis() / 1000L + leaseSeconds);stmt.setInt(2, taskId);stmt.setLong(3, fireEpoch);stmt.setString(4, owner);
+                    return stmt.executeUpdate() > 0;});
+            } catch (SQLException e) {
+                throw new IllegalStateException("Could not renew the lease on task " + taskId + ": " + e.getMessage(), e);}});}
+
+    @Override
+    public CompletableFuture<Void> removeTaskRecords(int taskId) {
+        states.remove(taskId);
+        writeQueue.discard(taskId);
+        return supplyAsync(() -> {
+            try {
+                int deleted = withConnection(db -> {
+                    PreparedStatement stmt = db.prepare("DELETE FROM task_state WHERE task_id = ?");stmt.setInt(1, taskId);
+                    return stmt.executeUpdate();});
+                plugin.getLogger().info("Removed " + deleted + " state record(s) for task " + taskId);
+            } catch (SQLException e) {
+                plugin.getLogger().severe("Error removing task records for task " + taskId + ": " + e.getMessage());}
+            return null;});}
+
+    @Override
+    public CompletableFuture<HistoryPage> getHistory(Integer taskId, long beforeId, int limit) {
+        int pageSize = Math.max(1, limit);
+        long cursor = beforeId > 0 ? beforeId : Long.MAX_VALUE;
+        return supplyAsync(() -> {
+            long started = System.nanoTime();
+            try {
+                return withConnection(db -> {
+                    PreparedStatement stmt;
+                    if (taskId == null) {
+                        stmt = db.prepare("SELECT " + HistoryEntry.COLUMNS + " FROM task_history WHERE id < ? ORDER BY id DESC LIMIT ?");
+                        stmt.setLong(1, cursor);stmt.setInt(2, pageSize + 1);
+                    } else {
+                        stmt = db.prepare("SELECT " + HistoryEntry.COLUMNS + " FROM task_history WHERE task_id = ? AND id < ? ORDER BY id DESC LIMIT ?");
+                        stmt.setInt(1, taskId);stmt.setLong(2, cursor);stmt.setInt(3, pageSize + 1);}
+                    List<HistoryEntry> entries = new ArrayList<>(pageSize);
+                    boolean more = false;
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            if (entries.size() == pageSize) {more = true;break;}
+                            entries.add(HistoryEntry.read(rs));}}
+                    return new HistoryPage(entries, more ? entries.get(entries.size() - 1).id() : 0L);});
+            } catch (SQLException e) {
+                plugin.getLogger().severe("Error reading task history: " + e.getMessage());
+                throw new IllegalStateException(e);
+            } finally {plugin.getMetrics().getDbQuery().recordSince(started);}});}
+
+    private void scheduleRetention() {
+        long intervalMinutes = Math.max(1L, plugin.getConfig().getLong("database.history.cleanup-interval-minutes", 60L));
+        maintenance.scheduleWithFixedDelay(this::applyRetention, 1L, intervalMinutes, TimeUnit.MINUTES);}
+
+    /**
+     * Deletes history older than {@code database.history.retention-days}. Each batch finds
+     * the ids of the oldest expired rows, then deletes up to the last of them, which avoids
+     * {@code LIMIT} in a {@code DELETE} or in a subquery on the same table. Expired leases,
+     * one row per run, are deleted in one statement.
+     */
+    private void applyRetention() {
+        int retentionDays = plugin.getConfig().getInt("database.history.retention-days", 30);
+        if (retentionDays <= 0) {return;}
+        int batchSize = Math.max(1, plugin.getConfig().getInt("database.history.cleanup-batch-size", 500));
+        long cutoffEpoch = ZonedDateTime.now().minusDays(retentionDays).toEpochSecond();
+        long total = 0;
+        try {
+            while (!maintenance.isShutdown()) {
+                int deleted = withConnection(db -> {
+                    PreparedStatement select = db.prepare("SELECT id FROM task_history WHERE fire_epoch < ? ORDER BY id LIMIT ?");
+                    select.setLong(1, cutoffEpoch);select.setInt(2, batchSize);
+                    long lastId = -1;
+                    int found = 0;
+                    try (ResultSet rs = select.executeQuery()) {
+                        while (rs.next()) {lastId = rs.getLong(1);found++;}}
+                    if (found == 0) {return 0;}
+                    PreparedStatement delete = db.prepare("DELETE FROM task_history WHERE id <= ? AND fire_epoch < ?");
+                    delete.setLong(1, lastId);delete.setLong(2, cutoffEpoch);
+                    delete.executeUpdate();
+                    return found;});
+                total += deleted;
+                if (deleted < batchSize) {break;}
+                Thread.yield();}
+            int leases = withConnection(db -> {
+                PreparedStatement delete = db.prepare("DELETE FROM task_lease WHERE fire_epoch < ?");
+                delete.setLong(1, cutoffEpoch);
+                return delete.executeUpdate();});
+            if (total + leases > 0) {
+                plugin.getLogger().info("Removed " + total + " history rows and " + leases + " leases older than " + retentionDays + " days");}
+        } catch (SQLException e) {
+            plugin.getLogger().warning("History cleanup failed: " + e.getMessage());}}
+
+    @Override
+    public int getPendingWrites() {return writeQueue.getDepth();}
+
+    /** Drains queued execution records (bounded by {@code database.shutdown-timeout-ms}) and closes the pool. */
+    @Override
+    public void close() {
+        long timeoutMs = plugin.getConfig().getLong("database.shutdown-timeout-ms", 5000L);
+        maintenance.shutdownNow();
+        writeQueue.shutdown(timeoutMs);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS)) {
+                plugin.getLogger().warning("Timed out waiting for database operations to finish");}
+        } catch (InterruptedException e) {Thread.currentThread().interrupt();}
+        PooledConnection connection;
+        while ((connection = idle.poll()) != null) {
+            try {connection.close();} catch (SQLException e) {plugin.getLogger().warning("Error closing database connection: " + e.getMessage());}}
+        plugin.getLogger().info("Database connections closed");}
+
+    @FunctionalInterface
+    private interface SqlWork<T> {
+        T run(PooledConnection connection) throws SQLException;
+    }
+}
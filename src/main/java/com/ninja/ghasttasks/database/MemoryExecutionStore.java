@@ -0,0 +1,65 @@
+package com.ninja.ghasttasks.database;
+
+import com.ninja.ghasttasks.GhastTasks;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An {@link ExecutionStore} that only lives in memory, for benchmarks and throwaway test
+ * servers. Every slot is run again after a restart. History is capped by
+ * {@code database.history.retention-days} like the other backends, trimmed as runs are added.
+ */
+public class MemoryExecutionStore implements ExecutionStore {
+    private final GhastTasks plugin;
+    private final Map<Integer, TaskState> states = new ConcurrentHashMap<>();
+    /** Oldest first; guarded by itself. */
+    private final ArrayDeque<HistoryEntry> history = new ArrayDeque<>();
+    private long nextId = 1;
+
+    public MemoryExecutionStore(GhastTasks plugin) {this.plugin = plugin;}
+
+    @Override
+    public TaskState getTaskState(int taskId) {return states.get(taskId);}
+
+    @Override
+    public CompletableFuture<Void> markTaskExecuted(int taskId, ZonedDateTime slot, RunResult result) {
+        long fireEpoch = slot.toEpochSecond();
+        states.merge(taskId, new TaskState(fireEpoch, result.outcome()), TaskState::latest);
+        int retentionDays = plugin.getConfig().getInt("database.history.retention-days", 30);
+        long cutoffEpoch = retentionDays > 0 ? ZonedDateTime.now().minusDays(retentionDays).toEpochSecond() : Long.MIN_VALUE;
+        synchronized (history) {
+            history.addLast(new HistoryEntry(nextId++, taskId, fireEpoch, System.currentTimeMillis(), result));
+            while (!history.isEmpty() && history.peekFirst().fireEpoch() < cutoffEpoch) {history.removeFirst();}}
+        return CompletableFuture.completedFuture(null);}
+
+    @Override
+    public CompletableFuture<Void> removeTaskRecords(int taskId) {
+        states.remove(taskId);
+        return CompletableFuture.completedFuture(null);}
+
+    @Override
+    public CompletableFuture<HistoryPage> getHistory(Integer taskId, long beforeId, int limit) {
+        int pageSize = Math.max(1, limit);
+        long cursor = beforeId > 0 ? beforeId : Long.MAX_VALUE;
+        List<HistoryEntry> entries = new ArrayList<>(pageSize);
+        boolean more = false;
+        synchronized (history) {
+            Iterator<HistoryEntry> newestFirst = history.descendingIterator();
+            while (newestFirst.hasNext()) {
+                HistoryEntry entry = newestFirst.next();
+                if (entry.id() >= cursor || (taskId != null && entry.taskId() != taskId)) {continue;}
+                if (entries.size() == pageSize) {more = true;break;}
+                entries.add(entry);}}
+        return CompletableFuture.completedFuture(new HistoryPage(entries, more ? entries.get(entries.size() - 1).id() : 0L));}
+
+    @Override
+    public void close() {
+        synchronized (history) {history.clear();}
+        states.clear();}
+}
@@ -0,0 +1,45 @@
+package com.ninja.ghasttasks.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A database connection owned by an {@link ExecutionStore} together with its cache of
+ * prepared statements. Only one thread uses a pooled connection at a time, so the
+ * statement cache needs no synchronisation.
+ */
+final class PooledConnection implements AutoCloseable {
+    private final Connection connection;
+    private final boolean readOnly;
+    private final Map<String, PreparedStatement> statements = new HashMap<>();
+
+    PooledConnection(Connection connection, boolean readOnly) {
+        this.connection = connection;
+        this.readOnly = readOnly;}
+
+    Connection connection() {return connection;}
+
+    boolean isReadOnly() {return readOnly;}
+
+    boolean isClosed() throws SQLException {return connection.isClosed();}
+
+    /** Returns the cached statement for {@code sql}, preparing it on first use. */
+    PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement stmt = statements.get(sql);
+        if (stmt == null || stmt.isClosed()) {
+            stmt = connection.prepareStatement(sql);
+            statements.put(sql, stmt);
+        } else {
+            stmt.clearParameters();}
+        return stmt;}
+
+    @Override
+    public void close() throws SQLException {
+        for (PreparedStatement stmt : statements.values()) {
+            try {stmt.close();} catch (SQLException ignored) {}}
+        statements.clear();
+        connection.close();}
+}
@@ -0,0 +1,22 @@
+package com.ninja.ghasttasks.database;
+
+/** How a task run ended, as stored in its history row. */
+public enum RunOutcome {
+    /** Every command succeeded. */
+    SUCCESS,
+    /** Some commands threw or were rejected by the server. */
+    PARTIAL,
+    /** No command succeeded. */
+    FAILED;
+
+    public static RunOutcome of(int commandCount, int executedCount) {
+        if (executedCount >= commandCount) {return SUCCESS;}
+        return executedCount == 0 ? FAILED : PARTIAL;}
+
+    /** Parses a stored name, treating anything unknown as {@link #SUCCESS} for rows written before outcomes existed. */
+    public static RunOutcome fromName(String name) {
+        if (name == null) {return SUCCESS;}
+        for (RunOutcome outcome : values()) {
+            if (outcome.name().equalsIgnoreCase(name)) {return outcome;}}
+        return SUCCESS;}
+}
@@ -0,0 +1,10 @@
+package com.ninja.ghasttasks.database;
+
+/** What one run of a task did: how many of its commands succeeded and how long it took. */
+public record RunResult(RunOutcome outcome, int commandCount, int executedCount, long durationMs) {
+    /** A run recorded without details, such as a manual mark. */
+    public static final RunResult UNKNOWN = new RunResult(RunOutcome.SUCCESS, 0, 0, 0L);
+
+    public static RunResult of(int commandCount, int executedCount, long durationMs) {
+        return new RunResult(RunOutcome.of(commandCount, executedCount), commandCount, executedCount, durationMs);}
+}
@@ -0,0 +1,435 @@
+package com.ninja.ghasttasks.database;
+
+import com.ninja.ghasttasks.GhastTasks;
+import java.io.File;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * The default {@link ExecutionStore}: a SQLite file in the plugin folder, written by one
+ * connection in WAL mode and read through a small pool of read-only connections.
+ */
+public class SqliteExecutionStore implements ExecutionStore {
+    /** Schema version stored in {@code PRAGMA user_version}; see {@link #migrate()}. */
+    private static final int SCHEMA_VERSION = 3;
+    private final GhastTasks plugin;
+    private PooledConnection writer;
+    private final String databasePath;
+    private final ReentrantLock connectionLock = new ReentrantLock();
+    private final BlockingQueue<PooledConnection> readers;
+    private final int readConnections;
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("GhastTasks-DB-", 0).factory());
+    /** In-memory copy of {@code task_state}: one entry per task, so it stays the size of the task list. */
+    private final Map<Integer, TaskState> states = new ConcurrentHashMap<>();
+    private final ExecutionWriteQueue writeQueue;
+    private final ScheduledExecutorService maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "GhastTasks-DB-Maintenance");
+        thread.setDaemon(true);
+        return thread;});
+    public SqliteExecutionStore(GhastTasks plugin) throws SQLException {
+        this.plugin = plugin;
+        if (!plugin.getDataFolder().exists()) {
+            boolean created = plugin.getDataFolder().mkdirs();
+            plugin.getLogger().info("Data folder created: " + created);}
+        File file = new File(plugin.getConfig().getString("database.file", "tasks.db"));
+        this.databasePath = (file.isAbsolute() ? file : new File(plugin.getDataFolder(), file.getPath())).getAbsolutePath();
+        this.readConnections = Math.max(1, plugin.getConfig().getInt("database.read-connections", 2));
+        this.readers = new ArrayBlockingQueue<>(readConnections);
+        plugin.getLogger().info("Database path: " + this.databasePath);
+        initializeDatabase();
+        this.writeQueue = new ExecutionWriteQueue(plugin, this::writeExecutionBatch);
+        scheduleRetention();}
+    private void initializeDatabase() throws SQLException {
+        plugin.getLogger().info("Initializing database...");
+        connect();
+        migrate();
+        verifyTables();
+        openReaders();
+        loadTaskStates();
+        plugin.getLogger().info("Database initialization completed successfully");}
+    /** Opens the single writer connection, which also switches the database to WAL mode. */
+    private void connect() throws SQLException {connectionLock.lock();
+        try {
+            if (writer != null && !writer.isClosed()) {
+                plugin.getLogger().info("Database connection already established");
+                return;}
+            writer = openConnection(false);
+            plugin.getLogger().info("Connected to SQLite database successfully: " + databasePath);
+        } catch (SQLException e) {
+            plugin.getLogger().severe("Failed to connect to database: " + e.getMessage());e.printStackTrace();throw e;
+        } finally {
+            connectionLock.unlock();}}
+    private void openReaders() throws SQLException {
+        for (int i = 0; i < readConnections; i++) {readers.add(openConnection(true));}
+        plugin.getLogger().info("Opened " + readConnections + " read-only database connection(s)");}
+    private PooledConnection openConnection(boolean readOnly) throws SQLException {
+        String url = "jdbc:sqlite:" + databasePath;
+        if (plugin.getConfig().getBoolean("debug", false)) {
+            plugin.getLogger().info("Connecting to database with URL: " + url + (readOnly ? " (read-only)" : ""));}
+        Connection connection = DriverManager.getConnection(url);
+        try (Statement stmt = connection.createStatement()) {
+            if (readOnly) {
+                stmt.execute("PRAGMA query_only = ON");
+            } else {
+                stmt.execute("PRAGMA foreign_keys = ON");
+                stmt.execute("PRAGMA journal_mode = WAL");
+                stmt.execute("PRAGMA synchronous = NORMAL");}
+            // Another server may share the file in coordination mode; wait for its locks instead of failing.
+            stmt.execute("PRAGMA busy_timeout = 5000");
+            stmt.execute("PRAGMA cache_size = 10000");
+            stmt.execute("PRAGMA temp_store = MEMORY");
+        } catch (SQLException e) {
+            connection.close();throw e;}
+        return new PooledConnection(connection, readOnly);}
+    /** Runs {@code work} on the writer connection, serialised with every other write. */
+    private <T> T withWriter(SqlWork<T> work) throws SQLException {
+        connectionLock.lock();
+        try {ensureConnection();return work.run(writer);}
+        finally {connectionLock.unlock();}}
+    /** Runs {@code work} on a pooled read-only connection; WAL lets reads proceed alongside writes. */
+    private <T> T withReader(SqlWork<T> work) throws SQLException {
+        PooledConnection reader;
+        try {reader = readers.take();}
+        catch (InterruptedException e) {Thread.currentThread().interrupt();throw new SQLException("Interrupted waiting for a database connection", e);}
+        long started = System.nanoTime();
+        try {
+            if (reader.isClosed()) {reader = openConnection(true);}
+            return work.run(reader);
+        } finally {
+            readers.offer(reader);
+            plugin.getMetrics().getDbQuery().recordSince(started);}}
+    private <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, executor);}
+    private void createTables() throws SQLException {
+        plugin.getLogger().info("Creating database tables...");
+        String createTableSQL = """
+            CREATE TABLE IF NOT EXISTS executed_tasks (
+                task_id INTEGER NOT NULL,
+                execution_date DATE NOT NULL,
+                execution_timestamp DATETIME DEFAULT CURRENT_TIMESTAMP,
+                PRIMARY KEY (task_id, execution_date)
+            )
+            """;
+        String createStateSQL = """
+            CREATE TABLE IF NOT EXISTS task_state (
+                task_id INTEGER PRIMARY KEY,
+                last_fire_epoch INTEGER NOT NULL
+            )
+            """;
+        connectionLock.lock();
+        try (Statement stmt = writer.connection().createStatement()) {
+            plugin.getLogger().info("Executing CREATE TABLE statement...");stmt.execute(createTableSQL);
+            plugin.getLogger().info("Table 'executed_tasks' created/verified");
+            stmt.execute(createStateSQL);
+            plugin.getLogger().info("Table 'task_state' created/verified");
+            plugin.getLogger().info("Database tables and indexes initialized successfully");
+        } catch (SQLException e) {plugin.getLogger().severe("Failed to create tables: " + e.getMessage());e.printStackTrace();throw e;}
+        finally {connectionLock.unlock();}}
+    /**
+     * Brings the schema up to {@link #SCHEMA_VERSION}, one version per transaction, and records
+     * the version in {@code PRAGMA user_version} so each step runs once.
+     */
+    private void migrate() throws SQLException {
+        withWriter(db -> {
+            Connection connection = db.connection();
+            int version;
+            try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+                version = rs.next() ? rs.getInt(1) : 0;}
+            if (version == 0) {createTables();} // the original schema, which every migration starts from
+            while (version < SCHEMA_VERSION) {
+                int target = version + 1;
+                boolean autoCommit = connection.getAutoCommit();
+                connection.setAutoCommit(false);
+                try (Statement stmt = connection.createStatement()) {
+                    applyMigration(connection, stmt, target);
+                    stmt.execute("PRAGMA user_version = " + target);
+                    connection.commit();
+                } catch (SQLException e) {
+                    connection.rollback();
+                    plugin.getLogger().severe("Database migration to version " + target + " failed: " + e.getMessage());
+                    throw e;
+                } finally {connection.setAutoCommit(autoCommit);}
+                plugin.getLogger().info("Migrated database schema to version " + target);
+                version = target;}
+            return null;});}
+    private void applyMigration(Connection connection, Statement stmt, int version) throws SQLException {
+        switch (version) {
+            case 1 -> {
+                // The (task_id, execution_date) index duplicated the primary key, so every insert updated two B-trees.
+                stmt.execute("DROP INDEX IF EXISTS idx_task_date");
+                stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS task_history (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        task_id INTEGER NOT NULL,
+                        fire_epoch INTEGER NOT NULL,
+                        finished_at INTEGER NOT NULL,
+                        duration_ms INTEGER NOT NULL,
+                        command_count INTEGER NOT NULL,
+                        executed_count INTEGER NOT NULL,
+                        outcome TEXT NOT NULL
+                    )
+                    """);
+                stmt.execute("CREATE INDEX IF NOT EXISTS idx_history_task ON task_history(task_id, id)");}
+            case 2 -> {
+                // task_state becomes the only dedupe store; executed_tasks grew by one row per task per day.
+                stmt.execute("ALTER TABLE task_state ADD COLUMN last_outcome TEXT NOT NULL DEFAULT 'SUCCESS'");
+                int migrated = migrateExecutedTasks(connection, stmt);
+                stmt.execute("DROP TABLE IF EXISTS executed_tasks");
+                plugin.getLogger().info("Moved " + migrated + " task(s) from executed_tasks to task_state");}
+            case 3 -> stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS task_lease (
+                        task_id INTEGER NOT NULL,
+                        fire_epoch INTEGER NOT NULL,
+                        owner TEXT NOT NULL,
+                        expires_at INTEGER NOT NULL,
+                        completed INTEGER NOT NULL DEFAULT 0,
+                        PRIMARY KEY (task_id, fire_epoch)
+                    )
+                    """);
+            default -> throw new SQLException("Unknown schema version " + version);}}
+    /**
+     * Gives every task that only has per-day records a state row. Those records do not say
+     * when in the day the task ran, so the last second of its last day is used: any slot on
+     * that day counts as done, as it did before. Tasks that already have a state row keep it.
+     */
+    private int migrateExecutedTasks(Connection connection, Statement stmt) throws SQLException {
+        try (ResultSet exists = stmt.executeQuery("SELECT 1 FROM sqlite_master WHERE type='table' AND name='executed_tasks'")) {
+            if (!exists.next()) {return 0;}}
+        ZoneId zone = ZoneId.systemDefault();
+        int migrated = 0;
+        try (ResultSet rs = stmt.executeQuery("SELECT task_id, MAX(execution_date) FROM executed_tasks GROUP BY task_id");
+             PreparedStatement insert = connection.prepareStatement("INSERT INTO task_state (task_id, last_fire_epoch, last_outcome) VALUES (?, ?, 'SUCCESS') "
+                     + "ON CONFLICT(task_id) DO NOTHING")) {
+            while (rs.next()) {
+                LocalDate lastDay = LocalDate.parse(rs.getString(2));
+                insert.setInt(1, rs.getInt(1));
+                insert.setLong(2, lastDay.plusDays(1).atStartOfDay(zone).toEpochSecond() - 1);
+                migrated += insert.executeUpdate();}}
+        return migrated;}
+    private void verifyTables() {
+        plugin.getLogger().info("Verifying database tables...");connectionLock.lock();
+        try (Statement stmt = writer.connection().createStatement()) {
+            ResultSet rs = stmt.executeQuery("SELECT name FROM sqlite_master WHERE type='table' AND name='task_state'");
+            if (rs.next()) {
+                plugin.getLogger().info("Table 'task_state' verified to exist");
+                ResultSet columns = stmt.executeQuery("PRAGMA table_info(task_state)");
+                plugin.getLogger().info("Table structure:");
+                while (columns.next()) {
+                    String columnName = columns.getString("name");
+                    String columnType = columns.getString("type");
+                    boolean notNull = columns.getBoolean("notnull");
+                    boolean pk = columns.getBoolean("pk");
+                    plugin.getLogger().info("  Column: " + columnName + " (" + columnType + ", NOT NULL: " + notNull + ", PK: " + pk + ")");}
+                ResultSet count = stmt.executeQuery("SELECT COUNT(*) as count FROM task_state");
+                if (count.next()) {
+                    int rowCount = count.getInt("count");
+                    plugin.getLogger().info("Table 'task_state' contains " + rowCount + " records");
+                }} else {
+                plugin.getLogger().severe("Table 'task_state' does not exist after creation attempt!");}
+        } catch (SQLException e) {
+            plugin.getLogger().severe("Error verifying tables: " + e.getMessage());e.printStackTrace();
+        } finally {connectionLock.unlock();}}
+    /** Loads every task's last fire time and outcome; after this, dedupe checks never touch the database. */
+    private void loadTaskStates() {
+        try {
+            int loaded = withReader(reader -> {
+                PreparedStatement stmt = reader.prepare("SELECT task_id, last_fire_epoch, last_outcome FROM task_state");
+                int count = 0;
+                try (ResultSet rs = stmt.executeQuery()) {
+                    while (rs.next()) {states.put(rs.getInt(1), new TaskState(rs.getLong(2), RunOutcome.fromName(rs.getString(3))));count++;}}
+                return count;});
+            plugin.getLogger().info("Loaded last run state for " + loaded + " tasks");
+        } catch (SQLException e) {
+            plugin.getLogger().severe("Error loading task state: " + e.getMessage());e.printStackTrace();}}
+    @Override
+    public TaskState getTaskState(int taskId) {return states.get(taskId);}
+    @Override
+    public CompletableFuture<Void> markTaskExecuted(int taskId, ZonedDateTime slot, RunResult result) {
+        long fireEpoch = slot.toEpochSecond();
+        states.merge(taskId, new TaskState(fireEpoch, result.outcome()), TaskState::latest);
+        return writeQueue.enqueue(taskId, fireEpoch, result);}
+    private void writeExecutionBatch(List<ExecutionWriteQueue.ExecutionRecord> batch) throws SQLException {
+        long started = System.nanoTime();
+        withWriter(db -> {
+            Connection connection = db.connection();
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                // One row per task, updated in place: an out-of-order record never moves the state backwards.
+                PreparedStatement stateStmt = db.prepare("INSERT INTO task_state (task_id, last_fire_epoch, last_outcome) VALUES (?, ?, ?) "
+                        + "ON CONFLICT(task_id) DO UPDATE SET last_outcome = excluded.last_outcome, last_fire_epoch = excluded.last_fire_epoch "
+                        + "WHERE excluded.last_fire_epoch >= task_state.last_fire_epoch");
+                for (ExecutionWriteQueue.ExecutionRecord record : batch) {
+                    stateStmt.setInt(1, record.taskId());stateStmt.setLong(2, record.fireEpoch());stateStmt.setString(3, record.result().outcome().name());
+                    stateStmt.addBatch();}
+                stateStmt.executeBatch();
+                PreparedStatement historyStmt = db.prepare("INSERT INTO task_history (task_id, fire_epoch, finished_at, duration_ms, command_count, executed_count, outcome) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?)");
+                for (ExecutionWriteQueue.ExecutionRecord record : batch) {
+                    RunResult result = record.result();
+                    historyStmt.setInt(1, record.taskId());historyStmt.setLong(2, record.fireEpoch());historyStmt.setLong(3, record.finishedAtMillis());
+                    historyStmt.setLong(4, result.durationMs());historyStmt.setInt(5, result.commandCount());historyStmt.setInt(6, result.executedCount());
+                    historyStmt.setString(7, result.outcome().name());historyStmt.addBatch();}
+                historyStmt.executeBatch();
+                if (plugin.getConfig().getBoolean("coordination.enabled", false)) {
+                    PreparedStatement leaseStmt = db.prepare("UPDATE task_lease SET completed = 1 WHERE task_id = ? AND fire_epoch = ?");
+                    for (ExecutionWriteQueue.ExecutionRecord record : batch) {
+                        leaseStmt.setInt(1, record.taskId());leaseStmt.setLong(2, record.fireEpoch());leaseStmt.addBatch();}
+                    leaseStmt.executeBatch();}
+                connection.commit();
+                plugin.getMetrics().getDbCommit().recordSince(started);
+                plugin.getLogger().info("Marked " + batch.size() + " task execution(s) as executed");
+            } catch (SQLException e) {
+                connection.rollback();throw e;
+            } finally {connection.setAutoCommit(autoCommit);}
+            return null;});}
+    /**
+     * One upsert decides the lease: it inserts a new row, or takes over a row that is not
+     * completed and has expired or is already {@code owner}'s. SQLite reports no change
+     * when the conflict update's condition fails, which is how a loser finds out.
+     */
+    @Override
+    public CompletableFuture<Boolean> tryAcquireLease(int taskId, ZonedDateTime slot, String owner, long leaseSeconds) {
+        long fireEpoch = slot.toEpochSecond();
+        return supplyAsync(() -> {
+            long now = System.currentTimeMillis() / 1000L;
+            try {
+                return withWriter(db -> {
+                    PreparedStatement stmt = db.prepare("INSERT INTO task_lease (task_id, fire_epoch, owner, expires_at) VALUES (?, ?, ?, ?) "
+                            + "ON CONFLICT(task_id, fire_epoch) DO UPDATE SET owner = excluded.owner, expires_at = excluded.expires_at "
+                            + "WHERE task_lease.completed = 0 AND (task_lease.expires_at < ? OR task_lease.owner = excluded.owner)");
+                    stmt.setInt(1, taskId);stmt.setLong(2, fireEpoch);stmt.setString(3, owner);stmt.setLong(4, now + leaseSeconds);stmt.setLong(5, now);
+                    return stmt.executeUpdate() > 0;});
+            } catch (SQLException e) {
+                throw new IllegalStateException("Could not claim task " + taskId + ": " + e.getMessage(), e);}});}
+    @Override
+    public CompletableFuture<Boolean> renewLease(int taskId, ZonedDateTime slot, String owner, long leaseSeconds) {
+        long fireEpoch = slot.toEpochSecond();
+        return supplyAsync(() -> {
+            try {
+                return withWriter(db -> {
+                    PreparedStatement stmt = db.prepare("UPDATE task_lease SET expires_at = ? WHERE task_id = ? AND fire_epoch = ? AND owner = ? AND completed = 0");
+                    stmt.setLong(1, System.currentTimeMillis() / 1000L + leaseSeconds);stmt.setInt(2, taskId);stmt.setLong(3, fireEpoch);stmt.setString(4, owner);
+                    return stmt.executeUpdate() > 0;});
+            } catch (SQLException e) {
+                throw new IllegalStateException("Could not renew the lease on task " + taskId + ": " + e.getMessage(), e);}});}
+    @Override
+    public CompletableFuture<Void> removeTaskRecords(int taskId) {
+        states.remove(taskId);
+        writeQueue.discard(taskId);
+        return supplyAsync(() -> {
+            try {
+                int deleted = withWriter(db -> {
+                    PreparedStatement stmt = db.prepare("DELETE FROM task_state WHERE task_id = ?");stmt.setInt(1, taskId);
+                    return stmt.executeUpdate();});
+                plugin.getLogger().info("Removed " + deleted + " state record(s) for task " + taskId);
+            } catch (SQLException e) {
+                plugin.getLogger().severe("Error removing task records for task " + taskId + ": " + e.getMessage());e.printStackTrace();}
+            return null;});}
+    /** Keyset pagination on the row id keeps every page an index range scan however deep it is. */
+    @Override
+    public CompletableFuture<HistoryPage> getHistory(Integer taskId, long beforeId, int limit) {
+        int pageSize = Math.max(1, limit);
+        long cursor = beforeId > 0 ? beforeId : Long.MAX_VALUE;
+        return supplyAsync(() -> {
+            try {
+                return withReader(reader -> {
+                    PreparedStatement stmt;
+                    if (taskId == null) {
+                        stmt = reader.prepare("SELECT " + HistoryEntry.COLUMNS + " FROM task_history WHERE id < ? ORDER BY id DESC LIMIT ?");
+                        stmt.setLong(1, cursor);stmt.setInt(2, pageSize + 1);
+                    } else {
+                        stmt = reader.prepare("SELECT " + HistoryEntry.COLUMNS + " FROM task_history WHERE task_id = ? AND id < ? ORDER BY id DESC LIMIT ?");
+                        stmt.setInt(1, taskId);stmt.setLong(2, cursor);stmt.setInt(3, pageSize + 1);}
+                    List<HistoryEntry> entries = new ArrayList<>(pageSize);
+                    boolean more = false;
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        while (rs.next()) {
+                            if (entries.size() == pageSize) {more = true;break;}
+                            entries.add(HistoryEntry.read(rs));}}
+                    return new HistoryPage(entries, more ? entries.get(entries.size() - 1).id() : 0L);});
+            } catch (SQLException e) {
+                plugin.getLogger().severe("Error reading task history: " + e.getMessage());
+                throw new IllegalStateException(e);}});}
+    private void scheduleRetention() {
+        long intervalMinutes = Math.max(1L, plugin.getConfig().getLong("database.history.cleanup-interval-minutes", 60L));
+        maintenance.scheduleWithFixedDelay(this::applyRetention, 1L, intervalMinutes, TimeUnit.MINUTES);}
+    /**
+     * Deletes history and leases older than {@code database.history.retention-days} in batches of
+     * {@code database.history.cleanup-batch-size}.
+     * Each batch is its own short write so marks from running tasks interleave with the cleanup.
+     */
+    private void applyRetention() {
+        int retentionDays = plugin.getConfig().getInt("database.history.retention-days", 30);
+        if (retentionDays <= 0) {return;}
+        int batchSize = Math.max(1, plugin.getConfig().getInt("database.history.cleanup-batch-size", 500));
+        long cutoffEpoch = ZonedDateTime.now().minusDays(retentionDays).toEpochSecond();
+        try {
+            long history = deleteInBatches("DELETE FROM task_history WHERE id IN (SELECT id FROM task_history WHERE fire_epoch < ? ORDER BY id LIMIT ?)",
+                    stmt -> stmt.setLong(1, cutoffEpoch), batchSize);
+            long leases = deleteInBatches("DELETE FROM task_lease WHERE rowid IN (SELECT rowid FROM task_lease WHERE fire_epoch < ? LIMIT ?)",
+                    stmt -> stmt.setLong(1, cutoffEpoch), batchSize);
+            if (history + leases > 0) {
+                plugin.getLogger().info("Removed " + history + " history rows and " + leases + " leases older than " + retentionDays + " days");}
+        } catch (SQLException e) {
+            plugin.getLogger().warning("History cleanup failed: " + e.getMessage());}}
+    private long deleteInBatches(String sql, StatementBinder binder, int batchSize) throws SQLException {
+        long total = 0;
+        while (!maintenance.isShutdown()) {
+            int deleted = withWriter(db -> {
+                PreparedStatement stmt = db.prepare(sql);
+                binder.bind(stmt);
+                stmt.setInt(2, batchSize);
+                return stmt.executeUpdate();});
+            total += deleted;
+            if (deleted < batchSize) {break;}
+            Thread.yield();}
+        return total;}
+    private void ensureConnection() throws SQLException {
+        if (writer == null || writer.isClosed()) {plugin.getLogger().info("Reconnecting to database...");connect();}}
+    @Override
+    public int getPendingWrites() {return writeQueue.getDepth();}
+    /** Drains queued execution records (bounded by {@code database.shutdown-timeout-ms}) and closes the connection. */
+    @Override
+    public void close() {
+        long timeoutMs = plugin.getConfig().getLong("database.shutdown-timeout-ms", 5000L);
+        maintenance.shutdownNow();
+        writeQueue.shutdown(timeoutMs);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS)) {
+                plugin.getLogger().warning("Timed out waiting for database operations to finish");}
+        } catch (InterruptedException e) {Thread.currentThread().interrupt();}
+        PooledConnection reader;
+        while ((reader = readers.poll()) != null) {
+            try {reader.close();} catch (SQLException e) {plugin.getLogger().warning("Error closing read connection: " + e.getMessage());}}
+        connectionLock.lock();
+        try {
+            if (writer != null && !writer.isClosed()) {writer.close();
+                plugin.getLogger().info("Database connection closed");}} catch (SQLException e) {plugin.getLogger().severe("Error closing database connection: " + e.getMessage());e.printStackTrace();} finally {connectionLock.unlock();}}
+
+    @FunctionalInterface
+    private interface SqlWork<T> {
+        T run(PooledConnection connection) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface StatementBinder {
+        void bind(PreparedStatement stmt) throws SQLException;
+    }
+}
\ No newline at end of file
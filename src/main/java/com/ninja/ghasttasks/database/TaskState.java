@@ -0,0 +1,8 @@
+package com.ninja.ghasttasks.database;
+
+/** The last run of a task as kept in {@code task_state}: the slot it fired for and how it ended. */
+public record TaskState(long lastFireEpoch, RunOutcome lastOutcome) {
+    /** Whichever of the two states is for the later slot, preferring {@code next} on a tie. */
+    static TaskState latest(TaskState current, TaskState next) {
+        return next.lastFireEpoch() >= current.lastFireEpoch() ? next : current;}
+}
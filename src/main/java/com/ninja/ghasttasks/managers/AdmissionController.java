@@ -0,0 +1,84 @@
+package com.ninja.ghasttasks.managers;
+
+import com.ninja.ghasttasks.GhastTasks;
+import com.ninja.ghasttasks.models.Task;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Decides when a due task may start executing. A task never runs twice at once, and
+ * at most {@code execution.max-concurrent-tasks} tasks run together; the rest wait in
+ * a queue ordered by priority (highest first) and then arrival.
+ */
+public class AdmissionController {
+    private final GhastTasks plugin;
+    private final Set<Integer> running = new HashSet<>();
+    private final Set<Integer> waiting = new HashSet<>();
+    private final PriorityQueue<Admission> queue = new PriorityQueue<>(
+            Comparator.comparingInt((Admission a) -> a.priority).reversed().thenComparingLong(a -> a.sequence));
+    private long sequence;
+    private volatile int maxConcurrent;
+
+    public AdmissionController(GhastTasks plugin) {
+        this.plugin = plugin;
+        loadSettings();}
+
+    public void loadSettings() {
+        maxConcurrent = Math.max(0, plugin.getConfig().getInt("execution.max-concurrent-tasks", 0));}
+
+    /**
+     * Starts {@code task} now if there is capacity, otherwise queues it. Returns false when
+     * the task is already running or waiting, in which case {@code start} is never run.
+     * The caller must {@link #release(int)} the task once it finishes.
+     */
+    public boolean admit(Task task, Runnable start) {
+        synchronized (this) {
+            if (running.contains(task.getId()) || waiting.contains(task.getId())) {return false;}
+            if (hasCapacity()) {
+                running.add(task.getId());
+            } else {
+                waiting.add(task.getId());
+                queue.add(new Admission(task.getId(), task.getPriority(), sequence++, start));
+                if (plugin.getConfig().getBoolean("debug", false)) {
+                    plugin.getLogger().info("Task " + task.getId() + " queued for execution (" + running.size() + " running, " + queue.size() + " waiting)");}
+                return true;}}
+        run(task.getId(), start);
+        return true;}
+
+    /** Marks {@code taskId} finished and starts as many waiting tasks as capacity allows. */
+    public void release(int taskId) {
+        List<Admission> toStart = new ArrayList<>();
+        synchronized (this) {
+            running.remove(taskId);
+            while (hasCapacity() && !queue.isEmpty()) {
+                Admission next = queue.poll();
+                waiting.remove(next.taskId);
+                running.add(next.taskId);
+                toStart.add(next);}}
+        for (Admission admission : toStart) {run(admission.taskId, admission.start);}}
+
+    public synchronized boolean isRunning(int taskId) {return running.contains(taskId);}
+
+    public synchronized int getRunningCount() {return running.size();}
+
+    public synchronized int getWaitingCount() {return queue.size();}
+
+    /** Drops waiting tasks that are no longer loaded, e.g. after a reload or removal. */
+    public synchronized void retainLoaded(Set<Integer> loadedTaskIds) {
+        queue.removeIf(admission -> !loadedTaskIds.contains(admission.taskId));
+        waiting.retainAll(loadedTaskIds);}
+
+    private boolean hasCapacity() {
+        return maxConcurrent <= 0 || running.size() < maxConcurrent;}
+
+    private void run(int taskId, Runnable start) {
+        try {start.run();} catch (Exception e) {
+            plugin.getLogger().severe("Error starting task " + taskId + ": " + e.getMessage());
+            release(taskId);}}
+
+    private record Admission(int taskId, int priority, long sequence, Runnable start) {}
+}
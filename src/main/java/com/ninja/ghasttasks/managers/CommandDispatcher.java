@@ -0,0 +1,352 @@
+package com.ninja.ghasttasks.managers;
+
+import com.ninja.ghasttasks.GhastTasks;
+import com.ninja.ghasttasks.models.CommandExecution;
+import com.ninja.ghasttasks.models.CommandTemplate;
+import com.ninja.ghasttasks.models.CompiledCommand;
+import com.ninja.ghasttasks.models.Task;
+import com.ninja.ghasttasks.scheduler.PluginScheduler;
+import org.bukkit.Bukkit;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.ConsoleCommandSender;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.server.PluginDisableEvent;
+import org.bukkit.event.server.PluginEnableEvent;
+import org.bukkit.event.server.ServerLoadEvent;
+import java.time.ZonedDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.IntConsumer;
+
+/**
+ * Drains queued task commands on the main thread across ticks. Each tick dispatches
+ * commands until the configured nanosecond budget is spent, and a task may ask for a
+ * number of ticks between consecutive commands instead of sleeping the server thread.
+ * On Folia the drain runs on the global region, which is also where console commands,
+ * including per-player ones, have to run; only commands run as a player are handed to
+ * that player's region.
+ */
+public class CommandDispatcher implements Listener {
+    private static final long DEFAULT_TICK_BUDGET_NANOS = 5_000_000L;
+
+    private final GhastTasks plugin;
+    private final Queue<DispatchJob> incoming = new ConcurrentLinkedQueue<>();
+    private final ArrayDeque<DispatchJob> active = new ArrayDeque<>();
+    private final CommandProfiler profiler;
+    /** A job whose next command must run alone, so it goes first next tick. */
+    private DispatchJob isolatedNext;
+    /** Reused to bind command templates; main thread only. */
+    private final StringBuilder templateBuffer = new StringBuilder(256);
+    private final PluginScheduler scheduler;
+    private PluginScheduler.TaskHandle drainTask;
+    /** Set while shutdown flushes the queue; nothing is handed to other threads then. */
+    private boolean flushing;
+    private long currentTick;
+    private volatile long tickBudgetNanos;
+    private volatile int defaultSpacingTicks;
+    private volatile int fanOutChunkSize;
+    private volatile boolean cacheCommands;
+    /** Bumped whenever the command map may have changed; main thread only. */
+    private long commandMapGeneration;
+
+    public CommandDispatcher(GhastTasks plugin) {
+        this.plugin = plugin;
+        this.profiler = new CommandProfiler(plugin);
+        this.scheduler = plugin.getPluginScheduler();
+        loadSettings();
+        plugin.getServer().getPluginManager().registerEvents(this, plugin);
+        drainTask = scheduler.runGlobalTimer(this::drain, 1L, 1L);}
+
+    public void loadSettings() {
+        long budget = plugin.getConfig().getLong("execution.tick-budget-nanos", DEFAULT_TICK_BUDGET_NANOS);
+        int spacing = plugin.getConfig().getInt("execution.command-spacing-ticks", 0);
+        if (budget <= 0) {
+            plugin.getLogger().warning("execution.tick-budget-nanos must be positive, using " + DEFAULT_TICK_BUDGET_NANOS);
+            budget = DEFAULT_TICK_BUDGET_NANOS;}
+        tickBudgetNanos = budget;
+        cacheCommands = plugin.getConfig().getBoolean("execution.cache-commands", true);
+        commandMapGeneration++;
+        defaultSpacingTicks = Math.max(0, spacing);
+        fanOutChunkSize = Math.max(0, plugin.getConfig().getInt("execution.fan-out-chunk-size", 50));}
+
+    public void submit(Task task, IntConsumer onComplete) {submit(task, ZonedDateTime.now(), onComplete);}
+
+    /**
+     * Queues every command of {@code task} for dispatch. Safe to call from any thread;
+     * {@code time} is the run's scheduled time, bound to {@code {date}} and {@code {time}}
+     * in command templates. {@code onComplete} runs on the main thread with the number of
+     * commands that succeeded once the last command has been dispatched.
+     */
+    public void submit(Task task, ZonedDateTime time, IntConsumer onComplete) {
+        int spacing = task.getCommandSpacingTicks() >= 0 ? task.getCommandSpacingTicks() : defaultSpacingTicks;
+        incoming.add(new DispatchJob(task, time, task.getCompiledCommands(), spacing, onComplete));}
+
+    public int getPendingJobs() {return incoming.size() + active.size();}
+
+    public CommandProfiler getProfiler() {return profiler;}
+
+    private void drain() {
+        currentTick++;
+        DispatchJob job;
+        while ((job = incoming.poll()) != null) {
+            job.nextTick = currentTick;
+            active.add(job);}
+        if (active.isEmpty()) {return;}
+        long deadline = System.nanoTime() + tickBudgetNanos;
+        DispatchJob isolated = isolatedNext;
+        isolatedNext = null;
+        if (isolated != null && isolated.hasNext() && isolated.nextTick <= currentTick && active.contains(isolated)) {
+            dispatchIsolated(isolated, deadline);
+            if (!isolated.hasNext()) {
+                active.remove(isolated);
+                complete(isolated);}
+            return;}
+        boolean dispatchedAny = false;
+        Iterator<DispatchJob> iterator = active.iterator();
+        while (iterator.hasNext()) {
+            DispatchJob current = iterator.next();
+            boolean endTick = false;
+            while (current.hasNext() && current.nextTick <= currentTick) {
+                if (dispatchedAny && System.nanoTime() >= deadline) {return;}
+                boolean isolate = profiler.isIsolated(current.task, current.commands.get(current.index));
+                if (isolate && dispatchedAny) {
+                    isolatedNext = current;
+                    return;}
+                dispatchedAny = true;
+                if (isolate) {
+                    dispatchIsolated(current, deadline);
+                    endTick = true;
+                    break;}
+                dispatchTimed(current);}
+            if (!current.hasNext()) {
+                iterator.remove();
+                complete(current);}
+            if (endTick) {return;}}}
+
+    /**
+     * Dispatches the next command of {@code job}, which gets the tick to itself. A
+     * per-player command still runs its whole fan-out chunk, as far as the tick budget allows.
+     */
+    private void dispatchIsolated(DispatchJob job, long deadline) {
+        int index = job.index;
+        do {dispatchTimed(job);}
+        while (job.index == index && job.nextTick <= currentTick && System.nanoTime() < deadline);}
+
+    /** Dispatches the next unit of {@code job}, timing it for the metrics and the profiler. */
+    private void dispatchTimed(DispatchJob job) {
+        CompiledCommand command = job.commands.get(job.index);
+        long started = System.nanoTime();
+        boolean finished = dispatchNext(job);
+        long elapsed = System.nanoTime() - started;
+        plugin.getMetrics().getCommandDispatch().record(elapsed);
+        profiler.record(job.task, command, elapsed);
+        if (finished && job.spacingTicks > 0) {job.nextTick = currentTick + job.spacingTicks;}}
+
+    /**
+     * Dispatches the next unit of {@code job}: a whole command, or one player of a
+     * per-player command. Returns whether the command is finished and the job moved on.
+     */
+    private boolean dispatchNext(DispatchJob job) {
+        CompiledCommand command = job.commands.get(job.index);
+        if (command.getExecution() == CommandExecution.EACH_PLAYER) {
+            if (!dispatchForNextPlayer(job, command)) {return false;}
+        } else if (executeCommand(job, command)) {job.executed++;} else {job.failed++;}
+        job.index++;
+        return true;}
+
+    /**
+     * Runs a per-player command for the next player of the job's snapshot, taken from the
+     * online players when the command starts. At most {@code execution.fan-out-chunk-size}
+     * players run per tick; the tick budget applies on top of that. Players who logged off
+     * since the snapshot are skipped. The command runs from the console, so on Folia it
+     * stays on the global region like the drain. Returns whether every player has been
+     * handled.
+     */
+    private boolean dispatchForNextPlayer(DispatchJob job, CompiledCommand command) {
+        if (job.fanOut == null) {
+            job.fanOut = new ArrayList<>(Bukkit.getOnlinePlayers());
+            job.fanOutIndex = 0;
+            job.fanOutDone = job.fanOutSkipped = job.fanOutFailed = 0;
+            job.fanOutTick = currentTick;
+            job.fanOutInTick = 0;}
+        if (job.fanOutIndex < job.fanOut.size()) {
+            if (job.fanOutTick != currentTick) {
+                job.fanOutTick = currentTick;
+                job.fanOutInTick = 0;}
+            Player player = job.fanOut.get(job.fanOutIndex++);
+            if (!player.isOnline()) {job.fanOutSkipped++;}
+            else {
+                plugin.getMetrics().getCommandsDispatched().increment();
+                try {
+                    if (dispatch(Bukkit.getConsoleSender(), player, job, command)) {job.fanOutDone++;}
+                    else {
+                        job.fanOutFailed++;
+                        plugin.getMetrics().getCommandsRejected().increment();}
+                } catch (Exception e) {
+                    job.fanOutFailed++;
+                    plugin.getMetrics().getCommandFailures().increment();
+                    plugin.getLogger().severe("Error executing command '" + command.getSource() + "' for " + player.getName() + " in task " + job.task.getId() + ": " + e.getMessage());
+                    if (plugin.getConfig().getBoolean("debug", false)) {e.printStackTrace();}}}
+            int chunk = fanOutChunkSize;
+            if (chunk > 0 && ++job.fanOutInTick >= chunk && job.fanOutIndex < job.fanOut.size()) {job.nextTick = currentTick + 1;}
+            if (job.fanOutIndex < job.fanOut.size()) {return false;}}
+        plugin.getLogger().info("Task " + job.task.getId() + " ran '" + command.getCommand() + "' for " + job.fanOut.size() + " players: "
+                + job.fanOutDone + " done, " + job.fanOutSkipped + " skipped, " + job.fanOutFailed + " failed");
+        if (job.fanOutDone > 0 || job.fanOut.isEmpty()) {job.executed++;} else {job.failed++;}
+        job.fanOut = null;
+        return true;}
+
+    private void complete(DispatchJob job) {
+        if (job.executed < job.commands.size()) {plugin.getMetrics().getTaskFailures().increment();}
+        plugin.getLogger().info("Task " + job.task.getId() + " completed: " + job.executed + " commands executed"
+                + (job.failed > 0 ? ", " + job.failed + " failed" : ""));
+        try {job.onComplete.accept(job.executed);} catch (Exception e) {
+            plugin.getLogger().severe("Error completing task " + job.task.getId() + ": " + e.getMessage());}}
+
+    /**
+     * Dispatches one compiled command. Returns whether it succeeded: false when it threw,
+     * or when the server reported it unknown or misused, which is counted as rejected.
+     */
+    private boolean executeCommand(DispatchJob job, CompiledCommand command) {
+        plugin.getMetrics().getCommandsDispatched().increment();
+        try {
+            CommandExecution executionType = command.getExecution();
+            String cleanCommand = command.getCommand();
+            ConsoleCommandSender console = Bukkit.getConsoleSender();
+            boolean executed = false;
+            switch (executionType) {
+                case CONSOLE:
+                    executed = dispatch(console, null, job, command);
+                    break;
+                case OP:
+                    // Execute as OP
+                    executed = dispatch(console, null, job, command);
+                    break;
+                case PLAYER: Collection<? extends Player> players = Bukkit.getOnlinePlayers();
+                    if (!players.isEmpty()) {Player firstPlayer = players.iterator().next();executed = dispatchAsPlayer(firstPlayer, job, command);
+                    } else {
+                        plugin.getLogger().warning("No players online to execute player command: " + cleanCommand + " - executing as console instead");executed = dispatch(console, null, job, command);}break;}
+            if (plugin.getConfig().getBoolean("debug", false)) {
+                plugin.getLogger().info("Executed command (" + executionType + "): " + cleanCommand + " - Success: " + executed);}
+            if (!executed) {plugin.getMetrics().getCommandsRejected().increment();}
+            return executed;
+        } catch (Exception e) {
+            plugin.getMetrics().getCommandFailures().increment();
+            plugin.getLogger().severe("Error executing command '" + command.getSource() + "' in task " + job.task.getId() + ": " + e.getMessage());
+            if (plugin.getConfig().getBoolean("debug", false)) {e.printStackTrace();}
+            return false;}}
+
+    /**
+     * Runs {@code command} as {@code player}. On Folia that has to happen on the player's
+     * region, so the command is bound here and handed over, and only whether it could be
+     * handed over is known.
+     */
+    private boolean dispatchAsPlayer(Player player, DispatchJob job, CompiledCommand command) {
+        if (!scheduler.isRegionized() || flushing) {return dispatch(player, player, job, command);}
+        String text = bind(player, player, job, command);
+        return scheduler.runFor(player, () -> {
+            try {
+                if (!Bukkit.dispatchCommand(player, text)) {plugin.getMetrics().getCommandsRejected().increment();}}
+            catch (Exception e) {
+                plugin.getMetrics().getCommandFailures().increment();
+                plugin.getLogger().severe("Error executing command '" + command.getSource() + "' as " + player.getName() + " in task " + job.task.getId() + ": " + e.getMessage());}
+        }, null);}
+
+    private String bind(CommandSender sender, Player player, DispatchJob job, CompiledCommand command) {
+        CommandTemplate template = command.getTemplate();
+        return template == null ? command.getCommand() : template.bind(templateBuffer, job.task, job.time, sender, player);}
+
+    /**
+     * Runs {@code command} through its cached {@link Command} target, resolving it from the
+     * command map on first use or after the map changed. Templates are bound first and
+     * split per run the way the command map splits them. Only commands plugins declare in
+     * their plugin.yml are called directly; a label built from variables, an unknown
+     * command, and vanilla or Brigadier commands, which need the server's own parsing and
+     * handling, go through {@link Bukkit#dispatchCommand}. {@code player} is who the
+     * command runs for, if anyone. Like the command map, a found command counts as run
+     * whatever its executor returns, so the cache does not change what counts as a failure.
+     */
+    private boolean dispatch(CommandSender sender, Player player, DispatchJob job, CompiledCommand command) {
+        CommandTemplate template = command.getTemplate();
+        String text = bind(sender, player, job, command);
+        if (!cacheCommands || !command.hasLiteralLabel()) {return Bukkit.dispatchCommand(sender, text);}
+        long generation = commandMapGeneration;
+        Command target = command.getCachedTarget(generation);
+        if (target == null || !target.isRegistered()) {
+            target = Bukkit.getCommandMap().getCommand(command.getLabel());
+            command.cacheTarget(target, generation);
+            if (target == null) {return Bukkit.dispatchCommand(sender, text);}}
+        if (!(target instanceof PluginCommand)) {return Bukkit.dispatchCommand(sender, text);}
+        String[] args;
+        if (template == null) {args = command.copyArgs();}
+        else {
+            String[] parts = CompiledCommand.splitLikeCommandMap(text);
+            args = Arrays.copyOfRange(parts, 1, parts.length);}
+        target.execute(sender, command.getLabel(), args);
+        return true;}
+
+    /** Plugins that enable or disable can add, remove or replace commands, so every cached target is dropped. */
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPluginEnable(PluginEnableEvent event) {commandMapGeneration++;}
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPluginDisable(PluginDisableEvent event) {commandMapGeneration++;}
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onServerLoad(ServerLoadEvent event) {commandMapGeneration++;}
+
+    /** Stops the drain loop and runs whatever is still queued, ignoring budget and spacing. */
+    public void shutdown() {
+        if (drainTask != null) {
+            drainTask.cancel();
+            drainTask = null;}
+        flushing = true;
+        DispatchJob job;
+        while ((job = incoming.poll()) != null) {active.add(job);}
+        if (!active.isEmpty()) {
+            plugin.getLogger().info("Flushing " + active.size() + " queued task(s) before shutdown");}
+        while ((job = active.poll()) != null) {
+            while (job.hasNext()) {dispatchNext(job);}
+            complete(job);}}
+
+    private static final class DispatchJob {
+        final Task task;
+        final ZonedDateTime time;
+        final List<CompiledCommand> commands;
+        final int spacingTicks;
+        final IntConsumer onComplete;
+        int index;
+        int executed;
+        /** Commands that threw or were rejected; a fan-out counts once, when no player's run succeeded. */
+        int failed;
+        long nextTick;
+        /** Players snapshot of the per-player command in progress, or null. */
+        List<Player> fanOut;
+        int fanOutIndex;
+        int fanOutDone;
+        int fanOutSkipped;
+        int fanOutFailed;
+        long fanOutTick;
+        int fanOutInTick;
+
+        DispatchJob(Task task, ZonedDateTime time, List<CompiledCommand> commands, int spacingTicks, IntConsumer onComplete) {
+            this.task = task;
+            this.time = time;
+            this.commands = commands;
+            this.spacingTicks = spacingTicks;
+            this.onComplete = onComplete;}
+
+        boolean hasNext() {return index < commands.size();}
+    }
+}
@@ -0,0 +1,118 @@
+package com.ninja.ghasttasks.managers;
+
+import com.ninja.ghasttasks.GhastTasks;
+import com.ninja.ghasttasks.models.CompiledCommand;
+import com.ninja.ghasttasks.models.Task;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Main-thread timings of task commands, kept per task and command line in a fixed-size ring
+ * of recent samples. A command slower than {@code execution.slow-command-ms} is reported
+ * once, and with {@code execution.isolate-slow-commands} it is dispatched alone in its own
+ * tick from then on. Samples are recorded on the thread that drains commands, the global
+ * region on Folia, while {@code /ghasttasks profile} may read them from a player's region,
+ * so the maps are concurrent and each command's samples are guarded by its stats object.
+ */
+public class CommandProfiler {
+    private final GhastTasks plugin;
+    private final Map<Integer, Map<String, CommandStats>> byTask = new ConcurrentHashMap<>();
+    private volatile long slowThresholdNanos;
+    private volatile boolean isolateSlow;
+    private volatile int window;
+
+    public CommandProfiler(GhastTasks plugin) {
+        this.plugin = plugin;
+        loadSettings();}
+
+    public void loadSettings() {
+        slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1L, plugin.getConfig().getLong("execution.slow-command-ms", 50L)));
+        isolateSlow = plugin.getConfig().getBoolean("execution.isolate-slow-commands", false);
+        window = Math.max(1, plugin.getConfig().getInt("execution.profile-window", 32));}
+
+    /** Records one dispatch of {@code command} and warns the first time it exceeds the threshold. */
+    void record(Task task, CompiledCommand command, long nanos) {
+        CommandStats stats = byTask.computeIfAbsent(task.getId(), id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(command.getSource(), source -> new CommandStats(source, window));
+        if (!stats.add(nanos, slowThresholdNanos)) {return;}
+        plugin.getLogger().warning("Slow command in task " + task.getId() + ": '" + command.getSource() + "' took "
+                + TimeUnit.NANOSECONDS.toMillis(nanos) + "ms on the main thread"
+                + (isolateSlow ? " - it will run in its own tick from now on" : ""));}
+
+    /** Whether {@code command} has been slow before and should be dispatched alone in a tick. */
+    boolean isIsolated(Task task, CompiledCommand command) {
+        if (!isolateSlow) {return false;}
+        Map<String, CommandStats> commands = byTask.get(task.getId());
+        CommandStats stats = commands == null ? null : commands.get(command.getSource());
+        return stats != null && stats.slow;}
+
+    /** Timings of {@code taskId}'s commands, slowest first. */
+    public List<CommandStats> getStats(int taskId) {
+        Map<String, CommandStats> commands = byTask.get(taskId);
+        if (commands == null) {return List.of();}
+        List<CommandStats> sorted = new ArrayList<>(commands.values());
+        sorted.sort(Comparator.comparingLong(CommandStats::getMaxNanos).reversed());
+        return sorted;}
+
+    public long getSlowThresholdNanos() {return slowThresholdNanos;}
+
+    /** Forgets tasks that are no longer loaded. Safe to call from any thread. */
+    void retainLoaded(Collection<Integer> taskIds) {byTask.keySet().retainAll(taskIds);}
+
+    /** Rolling timings of one command line. */
+    public static final class CommandStats {
+        private final String source;
+        private final long[] samples;
+        private int next;
+        private int filled;
+        private long runs;
+        private long slowRuns;
+        private volatile boolean slow;
+
+        CommandStats(String source, int window) {
+            this.source = source;
+            this.samples = new long[window];}
+
+        /** Adds a sample; returns true only the first time one reaches {@code slowNanos}. */
+        synchronized boolean add(long nanos, long slowNanos) {
+            samples[next] = nanos;
+            next = (next + 1) % samples.length;
+            if (filled < samples.length) {filled++;}
+            runs++;
+            if (nanos < slowNanos) {return false;}
+            slowRuns++;
+            if (slow) {return false;}
+            slow = true;
+            return true;}
+
+        public String getSource() {return source;}
+
+        /** Total dispatches since the plugin started, not just those in the window. */
+        public synchronized long getRuns() {return runs;}
+
+        public synchronized long getSlowRuns() {return slowRuns;}
+
+        /** Whether the command has ever exceeded the slow threshold. */
+        public boolean isSlow() {return slow;}
+
+        public synchronized long getLastNanos() {return filled == 0 ? 0L : samples[(next - 1 + samples.length) % samples.length];}
+
+        /** Slowest sample in the window. */
+        public synchronized long getMaxNanos() {
+            long max = 0;
+            for (int i = 0; i < filled; i++) {max = Math.max(max, samples[i]);}
+            return max;}
+
+        /** Mean of the samples in the window. */
+        public synchronized long getAverageNanos() {
+            if (filled == 0) {return 0L;}
+            long total = 0;
+            for (int i = 0; i < filled; i++) {total += samples[i];}
+            return total / filled;}
+    }
+}
@@ -0,0 +1,122 @@
+package com.ninja.ghasttasks.managers;
+
+import com.ninja.ghasttasks.GhastTasks;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Writes task edits back to {@code config.yml} off the main thread. Changes are collected
+ * per config path, so repeated edits of the same value collapse into one, and written
+ * together {@code persistence.save-delay-ms} after the first pending change. Each write
+ * applies the changes to the file as it is on disk, so edits made to it by hand are kept,
+ * and replaces it atomically through a temporary file.
+ */
+public class ConfigPersister {
+    private static final String CONFIG_FILE = "config.yml";
+    private final GhastTasks plugin;
+    private final Path configFile;
+    private final ScheduledExecutorService writer;
+    private final Map<String, Object> pending = new LinkedHashMap<>();
+    private boolean flushScheduled;
+    /** The file as last written or read by the writer thread; writer thread only. */
+    private YamlConfiguration mirror;
+    private volatile String lastWritten;
+    /** Whether the last write re-read the file first, so it may carry edits made by hand that nothing applied yet. */
+    private volatile boolean lastWriteMergedDisk;
+
+    public ConfigPersister(GhastTasks plugin) {
+        this.plugin = plugin;
+        this.configFile = plugin.getDataFolder().toPath().resolve(CONFIG_FILE);
+        this.writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "GhastTasks-ConfigWriter");
+            thread.setDaemon(true);
+            return thread;});}
+
+    /** Queues {@code changes} (config path to value, null removes the path) for the next write. */
+    public void update(Map<String, Object> changes) {
+        if (changes.isEmpty()) {return;}
+        synchronized (pending) {
+            pending.putAll(changes);
+            if (flushScheduled) {return;}
+            flushScheduled = true;}
+        long delayMs = Math.max(0L, plugin.getConfig().getLong("persistence.save-delay-ms", 500L));
+        try {writer.schedule(this::flush, delayMs, TimeUnit.MILLISECONDS);}
+        catch (Exception e) {
+            synchronized (pending) {flushScheduled = false;}
+            plugin.getLogger().severe("Could not schedule config save: " + e.getMessage());}}
+
+    /** Writes pending changes now and waits for the write to finish. */
+    public void flushNow() {
+        try {writer.submit(this::flush).get(getShutdownTimeoutMs(), TimeUnit.MILLISECONDS);}
+        catch (InterruptedException e) {Thread.currentThread().interrupt();}
+        catch (ExecutionException | TimeoutException e) {plugin.getLogger().severe("Failed to save " + CONFIG_FILE + ": " + e.getMessage());}
+        catch (RejectedExecutionException e) {flush();}}
+
+    /**
+     * Whether {@code content} is exactly what this persister last wrote and holds nothing
+     * else, so a file watcher can ignore it. A write that merged edits made on disk is not
+     * ignorable: those edits still have to be applied.
+     */
+    public boolean isOwnWrite(String content) {return content.equals(lastWritten) && !lastWriteMergedDisk;}
+
+    public int getPendingChanges() {
+        synchronized (pending) {return pending.size();}}
+
+    public void shutdown() {
+        flushNow();
+        writer.shutdown();}
+
+    /** Re-reads the file unless it still holds exactly what was last written; returns whether it did. */
+    private boolean refreshMirror() throws IOException, InvalidConfigurationException {
+        String onDisk = Files.exists(configFile) ? Files.readString(configFile, StandardCharsets.UTF_8) : "";
+        if (mirror != null && onDisk.equals(lastWritten)) {return false;}
+        YamlConfiguration loaded = new YamlConfiguration();
+        loaded.loadFromString(onDisk);
+        mirror = loaded;
+        return true;}
+
+    private void flush() {
+        Map<String, Object> changes;
+        synchronized (pending) {
+            flushScheduled = false;
+            if (pending.isEmpty()) {return;}
+            changes = new LinkedHashMap<>(pending);
+            pending.clear();}
+        boolean mergedDisk;
+        try {
+            mergedDisk = refreshMirror();
+        } catch (IOException | InvalidConfigurationException e) {
+            plugin.getLogger().severe("Dropped " + changes.size() + " config changes, " + CONFIG_FILE + " could not be read: " + e.getMessage());
+            return;}
+        for (Map.Entry<String, Object> change : changes.entrySet()) {mirror.set(change.getKey(), change.getValue());}
+        String content = mirror.saveToString();
+        Path temp = configFile.resolveSibling(CONFIG_FILE + ".tmp");
+        try {
+            lastWriteMergedDisk = mergedDisk;
+            lastWritten = content;
+            Files.writeString(temp, content, StandardCharsets.UTF_8);
+            try {Files.move(temp, configFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);}
+            catch (AtomicMoveNotSupportedException e) {Files.move(temp, configFile, StandardCopyOption.REPLACE_EXISTING);}
+            if (plugin.getConfig().getBoolean("debug", false)) {
+                plugin.getLogger().info("Saved " + changes.size() + " config changes to " + CONFIG_FILE);}
+        } catch (IOException e) {
+            plugin.getLogger().severe("Failed to save " + CONFIG_FILE + ": " + e.getMessage());
+            e.printStackTrace();}}
+
+    private long getShutdownTimeoutMs() {
+        return Math.max(100L, plugin.getConfig().getLong("persistence.shutdown-timeout-ms", 5000L));}
+}
@@ -0,0 +1,95 @@
+package com.ninja.ghasttasks.managers;
+
+import com.ninja.ghasttasks.GhastTasks;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Optional hot reload: watches {@code config.yml} and, once edits have been quiet for
+ * {@code reload.watch-debounce-ms}, parses it off the main thread and applies the task
+ * diff. Plugin settings are then reloaded on the main thread.
+ */
+public class ConfigWatcher {
+    private static final String CONFIG_FILE = "config.yml";
+    private final GhastTasks plugin;
+    private final Path configFile;
+    private WatchService watchService;
+    private Thread thread;
+
+    public ConfigWatcher(GhastTasks plugin) {
+        this.plugin = plugin;
+        this.configFile = plugin.getDataFolder().toPath().resolve(CONFIG_FILE);}
+
+    public void start() {
+        if (thread != null) {return;}
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            plugin.getDataFolder().toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not watch " + CONFIG_FILE + " for changes: " + e.getMessage());
+            return;}
+        thread = new Thread(this::run, "GhastTasks-ConfigWatcher");
+        thread.setDaemon(true);
+        thread.start();
+        plugin.getLogger().info("Watching " + CONFIG_FILE + " for changes");}
+
+    public void stop() {
+        if (watchService == null) {return;}
+        try {watchService.close();} catch (IOException ignored) {}
+        watchService = null;
+        thread = null;}
+
+    private void run() {
+        WatchService service = watchService;
+        try {
+            while (true) {
+                if (!touchesConfig(service.take())) {continue;}
+                long debounceMs = Math.max(0L, plugin.getConfig().getLong("reload.watch-debounce-ms", 1000L));
+                WatchKey more;
+                while ((more = service.poll(debounceMs, TimeUnit.MILLISECONDS)) != null) {touchesConfig(more);}
+                apply();}
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // stopped
+        }}
+
+    /** Drains {@code key} and reports whether any of its events concern the config file. */
+    private boolean touchesConfig(WatchKey key) {
+        boolean relevant = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.context() instanceof Path path && path.toString().equals(CONFIG_FILE)) {relevant = true;}}
+        key.reset();
+        return relevant;}
+
+    /**
+     * Writes queued task edits first, so the file the diff is built from already holds
+     * them and an edit made by hand does not revert them in the running registry.
+     */
+    private void apply() {
+        plugin.getConfigPersister().flushNow();
+        YamlConfiguration config = new YamlConfiguration();
+        try {
+            String content = Files.readString(configFile, StandardCharsets.UTF_8);
+            if (plugin.getConfigPersister().isOwnWrite(content)) {return;}
+            config.loadFromString(content);
+        } catch (IOException | InvalidConfigurationException e) {
+            plugin.getLogger().warning("Ignoring change to " + CONFIG_FILE + ", it could not be read: " + e.getMessage());
+            return;}
+        plugin.getLogger().info(CONFIG_FILE + " changed on disk, applying task changes...");
+        try {
+            plugin.getTaskManager().applyTasks(config);
+            plugin.getPluginScheduler().runGlobal(plugin::reloadSettings);
+        } catch (Exception e) {
+            plugin.getLogger().severe("Failed to apply " + CONFIG_FILE + " changes: " + e.getMessage());
+            e.printStackTrace();}}
+}
@@ -0,0 +1,91 @@
+package com.ninja.ghasttasks.managers;
+
+import com.ninja.ghasttasks.GhastTasks;
+import com.ninja.ghasttasks.models.Task;
+import java.time.ZonedDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lets several servers that share one execution store run each task slot only once.
+ * With {@code coordination.enabled}, a server first claims a lease on the task and slot in
+ * the store and skips the run if another server holds it. A lease lasts
+ * {@code coordination.lease-seconds} and is renewed every third of that for as long as its
+ * run is in flight, up to when the run is written to the store, so a slow run or a backed
+ * up write queue does not lose it. Only when the holder stops renewing, e.g. because it
+ * crashed, does the slot go to another server. Once the run is recorded, the slot stays taken.
+ */
+public class LeaseCoordinator {
+    /** Shorter leases could lapse between two renewals on a busy database. */
+    static final long MIN_LEASE_SECONDS = 30L;
+
+    private final GhastTasks plugin;
+    private final String nodeId;
+    private final Map<String, HeldLease> held = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "GhastTasks-Lease-Renewer");
+        thread.setDaemon(true);
+        return thread;});
+    private volatile boolean enabled;
+    private volatile long leaseSeconds;
+    /** Epoch second of the last renewal round; only touched by the renewer thread. */
+    private long lastRenewal;
+
+    private record HeldLease(int taskId, ZonedDateTime slot) {}
+
+    public LeaseCoordinator(GhastTasks plugin) {
+        this.plugin = plugin;
+        String configured = plugin.getConfig().getString("coordination.node-id", "");
+        this.nodeId = configured == null || configured.isBlank() ? UUID.randomUUID().toString() : configured;
+        loadSettings();
+        renewer.scheduleWithFixedDelay(this::renewDue, 1L, 1L, TimeUnit.SECONDS);}
+
+    public void loadSettings() {
+        enabled = plugin.getConfig().getBoolean("coordination.enabled", false);
+        long configured = plugin.getConfig().getLong("coordination.lease-seconds", 300L);
+        if (configured < MIN_LEASE_SECONDS) {
+            plugin.getLogger().warning("coordination.lease-seconds is " + configured + ", using the minimum of " + MIN_LEASE_SECONDS);
+            configured = MIN_LEASE_SECONDS;}
+        leaseSeconds = configured;}
+
+    public boolean isEnabled() {return enabled;}
+
+    /** The name this server claims leases under; fixed until restart. */
+    public String getNodeId() {return nodeId;}
+
+    /** Completes with whether this server may run {@code task} for {@code slot}; a won lease is kept renewed until {@link #release}. */
+    CompletableFuture<Boolean> claim(Task task, ZonedDateTime slot) {
+        if (!enabled) {return CompletableFuture.completedFuture(true);}
+        return plugin.getExecutionStore().tryAcquireLease(task.getId(), slot, nodeId, leaseSeconds).thenApply(won -> {
+            if (won) {held.put(key(task.getId(), slot), new HeldLease(task.getId(), slot));}
+            return won;});}
+
+    /** Stops renewing the lease on {@code taskId} for {@code slot}, once its run is recorded or abandoned. */
+    void release(int taskId, ZonedDateTime slot) {held.remove(key(taskId, slot));}
+
+    private static String key(int taskId, ZonedDateTime slot) {return taskId + ":" + slot.toEpochSecond();}
+
+    /** Renews every held lease once a third of the lease has passed since the last round. */
+    private void renewDue() {
+        long now = System.currentTimeMillis() / 1000L;
+        long period = Math.max(1L, leaseSeconds / 3L);
+        if (held.isEmpty() || now - lastRenewal < period) {return;}
+        lastRenewal = now;
+        for (Map.Entry<String, HeldLease> entry : held.entrySet()) {
+            HeldLease lease = entry.getValue();
+            plugin.getExecutionStore().renewLease(lease.taskId(), lease.slot(), nodeId, leaseSeconds).whenComplete((renewed, throwable) -> {
+                if (throwable != null) {
+                    plugin.getLogger().warning("Could not renew the lease on task " + lease.taskId() + " for " + lease.slot().toLocalDateTime() + ": " + throwable.getMessage());
+                } else if (!renewed && held.remove(entry.getKey(), lease) && !plugin.getExecutionStore().hasTaskFired(lease.taskId(), lease.slot())) {
+                    plugin.getLogger().warning("Lost the lease on task " + lease.taskId() + " for " + lease.slot().toLocalDateTime()
+                            + " before its run was recorded; another server may run it too");}});}}
+
+    public void shutdown() {
+        renewer.shutdownNow();
+        held.clear();}
+}
@@ -0,0 +1,84 @@
+package com.ninja.ghasttasks.managers;
+
+import com.ninja.ghasttasks.GhastTasks;
+import com.ninja.ghasttasks.models.CompiledCommand;
+import com.ninja.ghasttasks.models.DailySchedule;
+import com.ninja.ghasttasks.models.Task;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of task edits applied together through {@link TaskManager#edit}. Edits work on a
+ * private copy of the registry; when the batch ends the registry is swapped once, change
+ * listeners run once and all config changes are saved in a single write.
+ */
+public final class TaskBatch {
+    private final GhastTasks plugin;
+    private final Map<Integer, Task> tasks;
+    private final Map<String, Object> configChanges = new LinkedHashMap<>();
+    private final List<Integer> removed = new ArrayList<>();
+
+    TaskBatch(GhastTasks plugin, TaskRegistry registry) {
+        this.plugin = plugin;
+        this.tasks = new HashMap<>(registry.getTasks());}
+
+    public Task getTask(int taskId) {return tasks.get(taskId);}
+
+    public boolean removeTask(int taskId) {
+        if (tasks.remove(taskId) == null) {return false;}
+        removed.add(taskId);
+        configChanges.put("tasks." + taskId, null);
+        plugin.getLogger().info("Removed task " + taskId);return true;}
+
+    public boolean updateTaskTime(int taskId, String timeStr) {
+        Task task = tasks.get(taskId);
+        if (task == null) {return false;}
+        try {
+            tasks.put(taskId, task.withSchedule(DailySchedule.parse(timeStr)));
+            configChanges.put("tasks." + taskId + ".time", timeStr.trim());
+            configChanges.put("tasks." + taskId + ".every", null);
+            configChanges.put("tasks." + taskId + ".start", null);
+            configChanges.put("tasks." + taskId + ".cron", null);
+            plugin.getLogger().info("Updated task " + taskId + " time to " + timeStr);return true;}
+        catch (DateTimeParseException e)
+        {plugin.getLogger().warning("Invalid time format: " + timeStr + " (expected HH:MM or HH:MM:SS)");return false;}}
+
+    public boolean addCommandToTask(int taskId, String command) {Task task = tasks.get(taskId);
+        if (task == null) {return false;}
+        if (command == null || command.trim().isEmpty()) {plugin.getLogger().warning("Cannot add empty command to task " + taskId);return false;}
+        CompiledCommand compiled;
+        try {compiled = CompiledCommand.compile(command);}
+        catch (IllegalArgumentException e) {plugin.getLogger().warning("Cannot add command to task " + taskId + ": " + e.getMessage());return false;}
+        List<CompiledCommand> commands = new ArrayList<>(task.getCompiledCommands());commands.add(compiled);
+        Task updated = task.withCommands(commands);
+        tasks.put(taskId, updated);
+        configChanges.put("tasks." + taskId + ".commands", updated.getCommands());
+        plugin.getLogger().info("Added command to task " + taskId + ": " + command.trim());return true;}
+
+    public boolean removeCommandFromTask(int taskId, int commandIndex) {Task task = tasks.get(taskId);
+        if (task == null || commandIndex < 1 || commandIndex > task.getCommands().size()) {return false;}
+        List<CompiledCommand> commands = new ArrayList<>(task.getCompiledCommands());CompiledCommand removedCommand = commands.remove(commandIndex - 1);
+        Task updated = task.withCommands(commands);
+        tasks.put(taskId, updated);
+        configChanges.put("tasks." + taskId + ".commands", updated.getCommands());
+        plugin.getLogger().info("Removed command from task " + taskId + ": " + removedCommand.getSource());return true;}
+
+    public boolean updateTaskMessage(int taskId, String message) {Task task = tasks.get(taskId);
+        if (task == null) {return false;}
+        String cleanMessage = message == null ? "" : message.trim();
+        tasks.put(taskId, task.withTaskMessage(cleanMessage));
+        configChanges.put("tasks." + taskId + ".task-msg", cleanMessage.isEmpty() ? null : cleanMessage);
+        plugin.getLogger().info("Updated task " + taskId + " message to: " + (cleanMessage.isEmpty() ? "(cleared)" : cleanMessage));return true;}
+
+    boolean isEmpty() {return configChanges.isEmpty();}
+
+    Map<Integer, Task> getTasks() {return tasks;}
+
+    Map<String, Object> getConfigChanges() {return configChanges;}
+
+    List<Integer> getRemoved() {return removed;}
+}
@@ -1,159 +1,227 @@
 package com.ninja.ghasttasks.managers;
 
 import com.ninja.ghasttasks.GhastTasks;
-import com.ninja.ghasttasks.models.CommandExecution;
+import com.ninja.ghasttasks.database.RunResult;
+import com.ninja.ghasttasks.models.CompiledCommand;
+import com.ninja.ghasttasks.models.CronSchedule;
+import com.ninja.ghasttasks.models.DailySchedule;
+import com.ninja.ghasttasks.models.IntervalSchedule;
+import com.ninja.ghasttasks.models.MisfirePolicy;
+import com.ninja.ghasttasks.models.Schedule;
 import com.ninja.ghasttasks.models.Task;
-import org.bukkit.Bukkit;
-import org.bukkit.command.ConsoleCommandSender;
 import org.bukkit.configuration.ConfigurationSection;
-import org.bukkit.entity.Player;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
+import java.time.ZonedDateTime;
 import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
 
 public class TaskManager {
     private final GhastTasks plugin;
-    private final Map<Integer, Task> tasks = new ConcurrentHashMap<>();
-    private final Map<Integer, AtomicBoolean> executingTasks = new ConcurrentHashMap<>();
-    private final DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH:mm");
+    private final AdmissionController admissionController;
+    private final LeaseCoordinator leaseCoordinator;
+    /** Current snapshot; replaced wholesale under {@code this} so concurrent edits cannot lose each other. */
+    private volatile TaskRegistry registry = TaskRegistry.EMPTY;
+    private final List<Runnable> changeListeners = new CopyOnWriteArrayList<>();
     public TaskManager(GhastTasks plugin) {
-        this.plugin = plugin;loadTasks();}
+        this.plugin = plugin;this.admissionController = new AdmissionController(plugin);this.leaseCoordinator = new LeaseCoordinator(plugin);loadTasks();}
 
     public void loadTasks() {
-        tasks.clear();
-        executingTasks.clear();
-        ConfigurationSection tasksSection = plugin.getConfig().getConfigurationSection("tasks");
+        applyTasks(plugin.getConfig());}
+    /**
+     * Parses the tasks in {@code root} and applies them as a diff against the loaded ones:
+     * unchanged tasks keep their current instance, so their schedule and execution state
+     * carry over, and nothing is published when nothing changed. Safe to call off the main thread.
+     */
+    public void applyTasks(ConfigurationSection root) {
+        Map<Integer, Task> parsed = parseTasks(root);
+        int added = 0;
+        int changed = 0;
+        int unchanged = 0;
+        synchronized (this) {
+            TaskRegistry current = registry;
+            Map<Integer, Task> merged = new HashMap<>(parsed.size() * 2);
+            for (Task task : parsed.values()) {
+                Task existing = current.get(task.getId());
+                if (existing == null) {added++;merged.put(task.getId(), task);}
+                else if (existing.equals(task)) {unchanged++;merged.put(task.getId(), existing);}
+                else {changed++;merged.put(task.getId(), task);}}
+            int removed = current.size() - unchanged - changed;
+            if (added + changed + removed > 0) {publish(TaskRegistry.of(merged.values()));}
+            if (current.size() > 0) {
+                plugin.getLogger().info("Tasks reloaded: " + added + " added, " + changed + " changed, " + removed + " removed, " + unchanged + " unchanged");}}
+        plugin.getLogger().info("Loaded " + parsed.size() + " tasks successfully");}
+    private Map<Integer, Task> parseTasks(ConfigurationSection root) {
+        Map<Integer, Task> tasks = new HashMap<>();
+        ConfigurationSection tasksSection = root.getConfigurationSection("tasks");
         if (tasksSection == null) {
-            plugin.getLogger().warning("No tasks section found in config.yml");return;}
-        int loadedCount = 0;
+            plugin.getLogger().warning("No tasks section found in config.yml");return tasks;}
+        MisfirePolicy defaultMisfirePolicy = MisfirePolicy.fromConfig(root.getString("scheduler.misfire-policy"), MisfirePolicy.SKIP);
         for (String taskIdStr : tasksSection.getKeys(false)) {
             try {
                 int taskId = Integer.parseInt(taskIdStr);
                 ConfigurationSection taskSection = tasksSection.getConfigurationSection(taskIdStr);
                 if (taskSection == null) {
                     plugin.getLogger().warning("Invalid task configuration for ID: " + taskId);continue;}
-                String timeStr = taskSection.getString("time");List<String> commands = taskSection.getStringList("commands");
-                if (timeStr == null || timeStr.trim().isEmpty()) {
-                    plugin.getLogger().warning("Task " + taskId + " is missing time configuration");continue;}
+                List<CompiledCommand> commands = compileCommands(taskId, taskSection.getStringList("commands"));
+                if (!taskSection.contains("time") && !taskSection.contains("every") && !taskSection.contains("cron")) {
+                    plugin.getLogger().warning("Task " + taskId + " is missing time configuration (time, every or cron)");continue;}
                 if (commands.isEmpty()) {plugin.getLogger().warning("Task " + taskId + " has no commands configured");continue;}
                 try {
-                    LocalTime time = LocalTime.parse(timeStr.trim(), timeFormatter);
+                    Schedule schedule = parseSchedule(taskSection);
                     String taskMessage = taskSection.getString("task-msg", "");
-                    Task task = new Task(taskId, time, new ArrayList<>(commands), taskMessage);tasks.put(taskId, task);executingTasks.put(taskId, new AtomicBoolean(false));loadedCount++;
+                    int commandSpacing = taskSection.getInt("command-spacing-ticks", -1);
+                    int priority = taskSection.getInt("priority", 0);
+                    boolean stagger = taskSection.getBoolean("stagger", true);
+                    MisfirePolicy misfirePolicy = MisfirePolicy.fromConfig(taskSection.getString("misfire"), defaultMisfirePolicy);
+                    Task task = new Task(taskId, schedule, commands, taskMessage, commandSpacing, priority, stagger, misfirePolicy);tasks.put(taskId, task);
                     if (plugin.getConfig().getBoolean("debug", false)) {
-                        plugin.getLogger().info("Loaded task " + taskId + " scheduled for " + timeStr + " with " + commands.size() + " commands" + (taskMessage.isEmpty() ? "" : " and message: '" + taskMessage + "'"));}
+                        plugin.getLogger().info("Loaded task " + taskId + " scheduled for " + schedule.describe() + " with " + commands.size() + " commands" + (taskMessage.isEmpty() ? "" : " and message: '" + taskMessage + "'"));}
                 } catch (DateTimeParseException e) {
-                    plugin.getLogger().warning("Invalid time format for task " + taskIdStr + ": " + timeStr + " (expected HH:MM)");}} catch (NumberFormatException e) {plugin.getLogger().warning("Invalid task ID (must be a number): " + taskIdStr);} catch (Exception e) {plugin.getLogger().severe("Error loading task " + taskIdStr + ": " + e.getMessage());}}plugin.getLogger().info("Loaded " + loadedCount + " tasks successfully");}
+                    plugin.getLogger().warning("Invalid time format for task " + taskIdStr + ": " + e.getParsedString() + " (expected HH:MM or HH:MM:SS)");
+                } catch (IllegalArgumentException e) {
+                    plugin.getLogger().warning("Invalid schedule for task " + taskIdStr + ": " + e.getMessage());}} catch (NumberFormatException e) {plugin.getLogger().warning("Invalid task ID (must be a number): " + taskIdStr);} catch (Exception e) {plugin.getLogger().severe("Error loading task " + taskIdStr + ": " + e.getMessage());}}
+        return tasks;}
+    /** Parses each command line once; blank lines and bare prefixes are dropped with a warning. */
+    private List<CompiledCommand> compileCommands(int taskId, List<String> lines) {
+        List<CompiledCommand> commands = new ArrayList<>(lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            try {commands.add(CompiledCommand.compile(lines.get(i)));}
+            catch (IllegalArgumentException e) {plugin.getLogger().warning("Skipping command " + (i + 1) + " of task " + taskId + ": " + e.getMessage());}}
+        return commands;}
+    /**
+     * Reads exactly one of {@code time} (HH:mm or HH:mm:ss), {@code every} (with an optional
+     * {@code start} time to align to) or {@code cron}.
+     */
+    private Schedule parseSchedule(ConfigurationSection taskSection) {
+        String time = taskSection.getString("time");
+        String every = taskSection.getString("every");
+        String cron = taskSection.getString("cron");
+        int configured = (time != null ? 1 : 0) + (every != null ? 1 : 0) + (cron != null ? 1 : 0);
+        if (configured != 1) {throw new IllegalArgumentException("set exactly one of 'time', 'every' or 'cron'");}
+        if (time != null) {return DailySchedule.parse(time);}
+        if (every != null) {
+            String start = taskSection.getString("start");
+            return IntervalSchedule.parse(every, start == null ? LocalTime.MIDNIGHT : DailySchedule.parse(start).time());}
+        return CronSchedule.parse(cron);}
     public void reloadTasks() {
         plugin.getLogger().info("Reloading tasks...");loadTasks();}
-    public void executeTask(int taskId) {Task task = tasks.get(taskId);
+    public void executeTask(int taskId) {
+        executeTask(taskId, List.of(ZonedDateTime.now()));}
+    /**
+     * Executes {@code taskId} once for each scheduled slot in {@code slots}, one after
+     * another. Each run is recorded against its slot so catch-up runs count for the day
+     * they were due rather than the day they ran.
+     */
+    public void executeTask(int taskId, List<ZonedDateTime> slots) {Task task = registry.get(taskId);
         if (task == null) {plugin.getLogger().warning("Attempted to execute non-existent task: " + taskId);return;}
-        AtomicBoolean isExecuting = executingTasks.get(taskId);
-        if (isExecuting == null || !isExecuting.compareAndSet(false, true)) {
+        if (slots.isEmpty()) {return;}
+        if (!admissionController.admit(task, () -> runSlot(task, slots, 0))) {
+            plugin.getMetrics().getSkipsRunning().add(slots.size());
             if (plugin.getConfig().getBoolean("debug", false)) {
-                plugin.getLogger().info("Task " + taskId + " is already executing, skipping");}return;}
-        plugin.getLogger().info("Executing task " + taskId + " with " + task.getCommands().size() + " commands");Bukkit.getScheduler().runTask(plugin, () -> {
+                plugin.getLogger().info("Task " + taskId + " is already executing, skipping");}}}
+    /**
+     * Runs slot {@code index} of {@code slots}, after claiming it when servers coordinate.
+     * A slot another server holds is skipped and the next one is tried.
+     */
+    private void runSlot(Task task, List<ZonedDateTime> slots, int index) {
+        if (!leaseCoordinator.isEnabled()) {startSlot(task, slots, index);return;}
+        int taskId = task.getId();
+        ZonedDateTime slot = slots.get(index);
+        leaseCoordinator.claim(task, slot).whenComplete((won, throwable) -> {
             try {
-                executeTaskCommands(task);
-                plugin.getDatabaseManager().markTaskExecuted(taskId).exceptionally(throwable -> {
-                            plugin.getLogger().severe("Failed to mark task " + taskId + " as executed: " + throwable.getMessage());return null;});
-                plugin.getLogger().info("Task " + taskId + " executed successfully");
+                if (throwable == null && won) {
+                    try {startSlot(task, slots, index);}
+                    catch (RuntimeException e) {leaseCoordinator.release(taskId, slot);throw e;}
+                    return;}
+                plugin.getMetrics().getSkipsLease().increment();
+                if (throwable != null) {
+                    plugin.getLogger().warning("Task " + taskId + " not run for " + slot.toLocalDateTime() + ", its lease could not be claimed: " + throwable.getMessage());
+                } else if (plugin.getConfig().getBoolean("debug", false)) {
+                    plugin.getLogger().info("Task " + taskId + " for " + slot.toLocalDateTime() + " is claimed by another server - skipping");}
+                if (index + 1 < slots.size()) {runSlot(task, slots, index + 1);} else {admissionController.release(taskId);}
             } catch (Exception e) {
-                plugin.getLogger().severe("Error executing task " + taskId + ": " + e.getMessage());
-                if (plugin.getConfig().getBoolean("debug", false)) {e.printStackTrace();}}
-            finally {isExecuting.set(false);}});}
-    private void executeTaskCommands(Task task) {
-        ConsoleCommandSender console = Bukkit.getConsoleSender();
-        int commandCount = 0;
-        for (String command : task.getCommands()) {
-            if (command == null || command.trim().isEmpty()) {
-                plugin.getLogger().warning("Skipping empty command in task " + task.getId());continue;}
+                plugin.getLogger().severe("Error starting task " + taskId + ": " + e.getMessage());
+                admissionController.release(taskId);}});}
+    private void startSlot(Task task, List<ZonedDateTime> slots, int index) {
+        int taskId = task.getId();
+        ZonedDateTime slot = slots.get(index);
+        plugin.getLogger().info("Executing task " + taskId + " with " + task.getCommands().size() + " commands"
+                + (slots.size() > 1 ? " (run " + (index + 1) + "/" + slots.size() + " for " + slot.toLocalDateTime() + ")" : ""));
+        plugin.getMetrics().getTaskFires().increment();
+        long started = System.currentTimeMillis();
+        plugin.getCommandDispatcher().submit(task, slot, executed -> {
+            boolean finished = index + 1 >= slots.size();
             try {
-                CommandExecution executionType = CommandExecution.fromCommand(command);
-                String cleanCommand = CommandExecution.stripPrefix(command).trim();
-                if (cleanCommand.isEmpty()) {
-                    plugin.getLogger().warning("Skipping empty command after prefix removal in task " + task.getId());continue;}
-                boolean executed = false;
-                switch (executionType) {
-                    case CONSOLE:
-                        executed = Bukkit.dispatchCommand(console, cleanCommand);
-                        break;
-                    case OP:
-                        // Execute as OP
-                        executed = Bukkit.dispatchCommand(console, cleanCommand);
-                        break;
-                    case PLAYER: Collection<? extends Player> players = Bukkit.getOnlinePlayers();
-                        if (!players.isEmpty()) {Player firstPlayer = players.iterator().next();executed = firstPlayer.performCommand(cleanCommand);
-                        } else {
-                            plugin.getLogger().warning("No players online to execute player command: " + cleanCommand + " - executing as console instead");executed = Bukkit.dispatchCommand(console, cleanCommand);}break;}commandCount++;
-                if (plugin.getConfig().getBoolean("debug", false)) {
-                    plugin.getLogger().info("Executed command " + commandCount + " (" + executionType + "): " + cleanCommand + " - Success: " + executed);}
-                if (commandCount < task.getCommands().size()) {
-                    try {Thread.sleep(50); } catch (InterruptedException e) {Thread.currentThread().interrupt();break;}}
+                RunResult result = RunResult.of(task.getCommands().size(), executed, System.currentTimeMillis() - started);
+                plugin.getExecutionStore().markTaskExecuted(taskId, slot, result).whenComplete((ignored, throwable) -> {
+                    leaseCoordinator.release(taskId, slot);
+                    if (throwable != null) {plugin.getLogger().severe("Failed to mark task " + taskId + " as executed: " + throwable.getMessage());}});
+                plugin.getLogger().info("Task " + taskId + " executed successfully");
+                if (!finished) {runSlot(task, slots, index + 1);}
             } catch (Exception e) {
-                plugin.getLogger().severe("Error executing command '" + command + "' in task " + task.getId() + ": " + e.getMessage());
-                if (plugin.getConfig().getBoolean("debug", false))
-                {e.printStackTrace();}}}
-        plugin.getLogger().info("Task " + task.getId() + " completed: " + commandCount + " commands executed");}
-    public void executeTaskForTesting(int taskId) {Task task = tasks.get(taskId);
+                finished = true;
+                plugin.getLogger().severe("Error continuing task " + taskId + ": " + e.getMessage());
+            } finally {if (finished) {admissionController.release(taskId);}}});}
+    public void executeTaskForTesting(int taskId) {Task task = registry.get(taskId);
         if (task == null)
         {plugin.getLogger().warning("Cannot test non-existent task: " + taskId);return;}
         plugin.getLogger().info("Testing task " + taskId + " (bypassing schedule and database checks)");
-        Bukkit.getScheduler().runTask(plugin, () -> {
-            try {executeTaskCommands(task);
-                plugin.getLogger().info("Task " + taskId + " test completed");
-            } catch (Exception e)
-            {plugin.getLogger().severe("Error testing task " + taskId + ": " + e.getMessage());}});}
-    public boolean shouldExecuteTask(int taskId, LocalTime currentTime) {
-        Task task = tasks.get(taskId);
-        if (task == null) {return false;}
-        boolean shouldExecute = task.getTime().getHour() == currentTime.getHour() && task.getTime().getMinute() == currentTime.getMinute();
-        if (plugin.getConfig().getBoolean("debug", false) && shouldExecute) {
-            plugin.getLogger().info("Task " + taskId + " should execute: current=" + currentTime.format(timeFormatter) + ", scheduled=" + task.getFormattedTime());}
-        return shouldExecute;}
+        plugin.getCommandDispatcher().submit(task, executed -> plugin.getLogger().info("Task " + taskId + " test completed"));}
+    /** Unmodifiable snapshot of the loaded tasks; never copied, safe to hold on any thread. */
     public Map<Integer, Task> getAllTasks() {
-        return new HashMap<>(tasks);}
+        return registry.getTasks();}
+    public TaskRegistry getRegistry() {
+        return registry;}
     public Task getTask(int taskId) {
-        return tasks.get(taskId);}
+        return registry.get(taskId);}
+    public AdmissionController getAdmissionController() {
+        return admissionController;}
+    public LeaseCoordinator getLeaseCoordinator() {
+        return leaseCoordinator;}
+    public int getTaskCount() {
+        return registry.size();}
+    public TaskTimeIndex getTimeIndex() {
+        return registry.getTimeIndex();}
+    public TaskTimeIndex.NextFire getNextFire(ZonedDateTime now) {
+        return registry.getTimeIndex().nextAfter(now);}
+    private synchronized void publish(TaskRegistry next) {
+        registry = next;
+        admissionController.retainLoaded(next.getTasks().keySet());
+        CommandDispatcher dispatcher = plugin.getCommandDispatcher();
+        if (dispatcher != null) {dispatcher.getProfiler().retainLoaded(next.getTasks().keySet());}
+        fireTasksChanged();}
+    /** Registers a callback run after tasks are reloaded, added, removed or edited. */
+    public void addChangeListener(Runnable listener) {
+        changeListeners.add(listener);}
+    private void fireTasksChanged() {
+        for (Runnable listener : changeListeners) {
+            try {listener.run();} catch (Exception e) {plugin.getLogger().severe("Error in task change listener: " + e.getMessage());}}}
+    /**
+     * Applies the edits made by {@code edits} as one change: the registry is swapped once,
+     * listeners run once and the config is saved in a single asynchronous write. Use this
+     * for bulk edits; the single-edit methods below are shorthands for one-edit batches.
+     */
+    public <T> T edit(Function<TaskBatch, T> edits) {
+        TaskBatch batch;
+        T result;
+        synchronized (this) {
+            batch = new TaskBatch(plugin, registry);
+            result = edits.apply(batch);
+            if (batch.isEmpty()) {return result;}
+            publish(TaskRegistry.of(batch.getTasks().values()));}
+        for (Map.Entry<String, Object> change : batch.getConfigChanges().entrySet()) {plugin.getConfig().set(change.getKey(), change.getValue());}
+        plugin.getConfigPersister().update(batch.getConfigChanges());
+        for (int taskId : batch.getRemoved()) {plugin.getExecutionStore().removeTaskRecords(taskId);}
+        return result;}
     public boolean removeTask(int taskId) {
-        if (tasks.remove(taskId) != null) {
-            plugin.getConfig().set("tasks." + taskId, null);
-            plugin.getDatabaseManager().removeTaskRecords(taskId);
-            plugin.getLogger().info("Removed task " + taskId);return true;}return false;}
+        return edit(batch -> batch.removeTask(taskId));}
     public boolean updateTaskTime(int taskId, String timeStr) {
-        Task task = tasks.get(taskId);
-        if (task == null) {return false;}
-        try {
-            LocalTime newTime = LocalTime.parse(timeStr.trim(), timeFormatter);task.setTime(newTime);
-            plugin.getConfig().set("tasks." + taskId + ".time", timeStr.trim());
-            plugin.saveConfig();
-            plugin.getLogger().info("Updated task " + taskId + " time to " + timeStr);return true;}
-        catch (DateTimeParseException e)
-        {plugin.getLogger().warning("Invalid time format: " + timeStr + " (expected HH:MM)");return false;}}
-    public boolean addCommandToTask(int taskId, String command) {Task task = tasks.get(taskId);
-        if (task == null) {return false;}
-        if (command == null || command.trim().isEmpty()) {plugin.getLogger().warning("Cannot add empty command to task " + taskId);return false;}
-        List<String> commands = new ArrayList<>(task.getCommands());commands.add(command.trim());task.setCommands(commands);
-        plugin.getConfig().set("tasks." + taskId + ".commands", commands);
-        plugin.saveConfig();
-        plugin.getLogger().info("Added command to task " + taskId + ": " + command.trim());return true;}
-    public boolean removeCommandFromTask(int taskId, int commandIndex) {Task task = tasks.get(taskId);
-        if (task == null || commandIndex < 1 || commandIndex > task.getCommands().size()) {return false;}
-        List<String> commands = new ArrayList<>(task.getCommands());String removedCommand = commands.remove(commandIndex - 1);
-        plugin.getConfig().set("tasks." + taskId + ".commands", commands);
-        plugin.saveConfig();
-        plugin.getLogger().info("Removed command from task " + taskId + ": " + removedCommand);return true;}
-    public boolean updateTaskMessage(int taskId, String message) {Task task = tasks.get(taskId);
-        if
-        (task == null) {return false;}
-        String cleanMessage = message == null ? "" : message.trim();task.setTaskMessage(cleanMessage);
-
-        if (cleanMessage.isEmpty()) {
-            plugin.getConfig().set("tasks." + taskId + ".task-msg", null);}
-        else
-        {plugin.getConfig().set("tasks." + taskId + ".task-msg", cleanMessage);}
-        plugin.saveConfig();
-        plugin.getLogger().info("Updated task " + taskId + " message to: " + (cleanMessage.isEmpty() ? "(cleared)" : cleanMessage));return true;}}
\ No newline at end of file
+        return edit(batch -> batch.updateTaskTime(taskId, timeStr));}
+    public boolean addCommandToTask(int taskId, String command) {
+        return edit(batch -> batch.addCommandToTask(taskId, command));}
+    public boolean removeCommandFromTask(int taskId, int commandIndex) {
+        return edit(batch -> batch.removeCommandFromTask(taskId, commandIndex));}
+    public boolean updateTaskMessage(int taskId, String message) {
+        return edit(batch -> batch.updateTaskMessage(taskId, message));}}
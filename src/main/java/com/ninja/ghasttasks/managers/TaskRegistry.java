@@ -0,0 +1,38 @@
+package com.ninja.ghasttasks.managers;
+
+import com.ninja.ghasttasks.models.Task;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of the loaded tasks: the id map and the matching time index.
+ * {@link TaskManager} publishes a new snapshot through a single volatile reference on
+ * every reload or edit, so readers on any thread see a consistent pair without copying.
+ */
+public final class TaskRegistry {
+    static final TaskRegistry EMPTY = new TaskRegistry(Collections.emptyMap(), TaskTimeIndex.EMPTY);
+
+    private final Map<Integer, Task> tasks;
+    private final TaskTimeIndex timeIndex;
+
+    private TaskRegistry(Map<Integer, Task> tasks, TaskTimeIndex timeIndex) {
+        this.tasks = tasks;
+        this.timeIndex = timeIndex;}
+
+    static TaskRegistry of(Collection<Task> source) {
+        if (source.isEmpty()) {return EMPTY;}
+        Map<Integer, Task> byId = new HashMap<>(source.size() * 2);
+        for (Task task : source) {byId.put(task.getId(), task);}
+        return new TaskRegistry(Collections.unmodifiableMap(byId), TaskTimeIndex.build(byId.values()));}
+
+    /** Unmodifiable view keyed by task id. */
+    public Map<Integer, Task> getTasks() {return tasks;}
+
+    public Task get(int taskId) {return tasks.get(taskId);}
+
+    public TaskTimeIndex getTimeIndex() {return timeIndex;}
+
+    public int size() {return tasks.size();}
+}
@@ -0,0 +1,89 @@
+package com.ninja.ghasttasks.managers;
+
+import com.ninja.ghasttasks.models.Task;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable, time-ordered view of the loaded tasks. Daily tasks are keyed by second-of-day
+ * so "next daily task after T" is a binary search; interval and cron tasks are evaluated
+ * through their schedules and the earliest result is remembered until it has passed.
+ * Rebuilt by {@link TaskManager} whenever tasks are loaded, edited or removed.
+ */
+public final class TaskTimeIndex {
+    static final TaskTimeIndex EMPTY = new TaskTimeIndex(new int[0], new Task[0], new Task[0]);
+
+    private final int[] secondsOfDay;
+    private final Task[] daily;
+    private final Task[] other;
+    private volatile CachedFire otherCache;
+
+    private TaskTimeIndex(int[] secondsOfDay, Task[] daily, Task[] other) {
+        this.secondsOfDay = secondsOfDay;
+        this.daily = daily;
+        this.other = other;}
+
+    static TaskTimeIndex build(Collection<Task> source) {
+        if (source.isEmpty()) {return EMPTY;}
+        List<Task> dailyTasks = new ArrayList<>();
+        List<Task> otherTasks = new ArrayList<>();
+        for (Task task : source) {
+            if (task.getTime() != null) {dailyTasks.add(task);} else {otherTasks.add(task);}}
+        Task[] sorted = dailyTasks.toArray(new Task[0]);
+        Arrays.sort(sorted, Comparator.comparingInt((Task t) -> t.getTime().toSecondOfDay()).thenComparingInt(Task::getId));
+        int[] seconds = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {seconds[i] = sorted[i].getTime().toSecondOfDay();}
+        return new TaskTimeIndex(seconds, sorted, otherTasks.toArray(new Task[0]));}
+
+    /**
+     * Returns the first task firing strictly after {@code now} together with its fire time.
+     * A task due at exactly {@code now} counts as already fired, matching the countdown
+     * placeholders. Returns null when no task will fire again.
+     */
+    public NextFire nextAfter(ZonedDateTime now) {
+        NextFire best = nextDaily(now);
+        NextFire next = nextOther(now);
+        if (best == null || (next != null && next.fireTime().isBefore(best.fireTime()))) {best = next;}
+        return best;}
+
+    private NextFire nextDaily(ZonedDateTime now) {
+        if (daily.length == 0) {return null;}
+        int pos = firstIndexAfter(now.toLocalTime().toSecondOfDay());
+        if (pos < daily.length) {return new NextFire(daily[pos], now.toLocalDate().atTime(daily[pos].getTime()).atZone(now.getZone()));}
+        return new NextFire(daily[0], now.toLocalDate().plusDays(1).atTime(daily[0].getTime()).atZone(now.getZone()));}
+
+    /** Earliest interval or cron fire time; reused while it is still in the future. */
+    private NextFire nextOther(ZonedDateTime now) {
+        if (other.length == 0) {return null;}
+        CachedFire cached = otherCache;
+        if (cached != null && !cached.computedAt().isAfter(now) && (cached.next() == null || cached.next().fireTime().isAfter(now))) {return cached.next();}
+        NextFire best = null;
+        for (Task task : other) {
+            ZonedDateTime fireTime = task.getSchedule().nextAfter(now);
+            if (fireTime != null && (best == null || fireTime.isBefore(best.fireTime()))) {best = new NextFire(task, fireTime);}}
+        otherCache = new CachedFire(best, now);
+        return best;}
+
+    public int size() {return daily.length + other.length;}
+
+    public boolean isEmpty() {return daily.length == 0 && other.length == 0;}
+
+    private int firstIndexAfter(int secondOfDay) {
+        int low = 0;
+        int high = secondsOfDay.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (secondsOfDay[mid] <= secondOfDay) {low = mid + 1;} else {high = mid;}}
+        return low;}
+
+    /** A task and the next time it fires. */
+    public record NextFire(Task task, ZonedDateTime fireTime) {
+        /** Whole seconds from {@code now} until the fire time. */
+        public long secondsFrom(ZonedDateTime now) {return Math.max(0L, fireTime.toEpochSecond() - now.toEpochSecond());}}
+
+    private record CachedFire(NextFire next, ZonedDateTime computedAt) {}
+}
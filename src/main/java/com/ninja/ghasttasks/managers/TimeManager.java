@@ -1,64 +1,249 @@
 package com.ninja.ghasttasks.managers;
 
 import com.ninja.ghasttasks.GhastTasks;
-import org.bukkit.Bukkit;
-import org.bukkit.scheduler.BukkitTask;
+import com.ninja.ghasttasks.models.MisfirePolicy;
+import com.ninja.ghasttasks.models.Schedule;
+import com.ninja.ghasttasks.models.Task;
+import java.time.Instant;
 import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Fires tasks at their scheduled wall-clock time. Every task's next fire time sits in a
+ * {@link TimingWheel}; the checker sleeps until the earliest deadline, turns the wheel and
+ * only touches the tasks that came due, re-arming each from its {@link Schedule}.
+ * Runs that were missed because of lag or downtime are handled by each task's
+ * {@link MisfirePolicy}, judged against the persisted last fire time.
+ */
 public class TimeManager {
+    private static final Comparator<Task> FIRE_ORDER = Comparator.comparingInt(Task::getPriority).reversed().thenComparingInt(Task::getId);
+    /** Upper bound on a single sleep so wall-clock adjustments are noticed. */
+    private static final long MAX_SLEEP_MS = TimeUnit.MINUTES.toMillis(5);
+    /** Slots walked for one task before the search window is narrowed, so a one-second interval cannot stall catch-up. */
+    private static final int MAX_SLOT_SCAN = 10_000;
     private final GhastTasks plugin;
-    private BukkitTask timeCheckTask;
-    private final Set<String> executedThisMinute = ConcurrentHashMap.newKeySet();
-    private String lastMinute = "";
-    private LocalTime lastCheckedTime = null;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final ScheduledExecutorService scheduler;
+    private final TimingWheel<Task> wheel;
+    /** The task instance each id is currently armed with; wheel entries for any other instance are stale. */
+    private final Map<Integer, Task> armed = new HashMap<>();
+    /** The wheel entry of each armed task that has a next fire time, so it can be taken off when the task changes. */
+    private final Map<Integer, TimingWheel.Entry<Task>> entries = new HashMap<>();
+    private ScheduledFuture<?> nextWake;
 
     public TimeManager(GhastTasks plugin) {
         this.plugin = plugin;
-        plugin.getLogger().info("TimeManager initialized - using system time");startTimeChecker();}
-    private void startTimeChecker() {
-        timeCheckTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::checkTime, 0L, 200L);}
-    private void checkTime() {try {
-            LocalTime currentTime = LocalTime.now();
-            String currentMinute = currentTime.format(DateTimeFormatter.ofPattern("HH:mm"));
-            if (!currentMinute.equals(lastMinute) && !currentTime.equals(lastCheckedTime)) {
-                executedThisMinute.clear();
-                lastMinute = currentMinute;
-                lastCheckedTime = currentTime;
-                checkAndExecuteTasks(currentTime, currentMinute);}
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "GhastTasks-Scheduler");
+            thread.setDaemon(true);
+            return thread;});
+        this.wheel = new TimingWheel<>(nowEpoch() - getMisfireThresholdSeconds());
+        plugin.getTaskManager().addChangeListener(() -> scheduler.execute(() -> {syncWheel();planNextWake();}));
+        plugin.getLogger().info("TimeManager initialized - using system time");
+        scheduler.execute(() -> {
+            try {catchUpMisfires();}
+            catch (Exception e) {plugin.getLogger().severe("Error catching up missed tasks: " + e.getMessage());}
+            syncWheel();
+            planNextWake();});}
+
+    /**
+     * Arms tasks that are new or were replaced since the last sync, and takes the entries of
+     * removed or replaced instances off the wheel, so a reload only costs work for the tasks
+     * that changed and rescheduled tasks leave nothing behind. Runs on the scheduler thread only.
+     */
+    private void syncWheel() {
+        Map<Integer, Task> current = plugin.getTaskManager().getAllTasks();
+        Iterator<Integer> ids = armed.keySet().iterator();
+        while (ids.hasNext()) {
+            Integer id = ids.next();
+            if (current.containsKey(id)) {continue;}
+            ids.remove();
+            disarm(id);}
+        ZonedDateTime from = toZoned(wheel.getCurrent());
+        int changed = 0;
+        for (Task task : current.values()) {
+            if (armed.get(task.getId()) == task) {continue;}
+            armed.put(task.getId(), task);
+            disarm(task.getId());
+            ZonedDateTime next = task.getSchedule().nextAfter(from);
+            if (next != null) {arm(task, next);}
+            changed++;}
+        if (plugin.getConfig().getBoolean("debug", false)) {
+            plugin.getLogger().info("Armed " + changed + " new or changed tasks, " + wheel.size() + " entries on the timing wheel");}}
+
+    private void arm(Task task, ZonedDateTime next) {
+        TimingWheel.Entry<Task> entry = wheel.add(task, next.toEpochSecond());
+        if (entry != null) {entries.put(task.getId(), entry);}}
+
+    private void disarm(int taskId) {
+        TimingWheel.Entry<Task> entry = entries.remove(taskId);
+        if (entry != null) {wheel.remove(entry);}}
+
+    /** Runs on the scheduler thread only. */
+    private void planNextWake() {
+        if (nextWake != null) {nextWake.cancel(false);}
+        long delayMs = MAX_SLEEP_MS;
+        long deadline = wheel.nextDeadline();
+        if (deadline != Long.MAX_VALUE) {
+            delayMs = Math.min(MAX_SLEEP_MS, Math.max(0L, deadline * 1000L - System.currentTimeMillis()));
+            if (plugin.getConfig().getBoolean("debug", false)) {
+                plugin.getLogger().info("Next task due at " + toZoned(deadline).toLocalDateTime() + ", sleeping " + delayMs + "ms");}}
+        nextWake = scheduler.schedule(this::checkDue, delayMs, TimeUnit.MILLISECONDS);}
+
+    private void checkDue() {
+        try {
+            long now = nowEpoch();
+            if (now > wheel.getCurrent()) {
+                ZonedDateTime to = toZoned(now);
+                Map<Task, List<ZonedDateTime>> slots = new LinkedHashMap<>();
+                for (TimingWheel.Entry<Task> entry : wheel.advanceTo(now)) {
+                    Task task = entry.value();
+                    entries.remove(task.getId(), entry);
+                    if (plugin.getTaskManager().getTask(task.getId()) != task) {continue;} // edited or removed since the last sync, which arms the new version
+                    armed.put(task.getId(), task);
+                    ZonedDateTime first = toZoned(entry.deadline());
+                    slots.computeIfAbsent(task, key -> new ArrayList<>()).addAll(slotsBetween(task.getSchedule(), first.minusSeconds(1), to));
+                    ZonedDateTime next = task.getSchedule().nextAfter(to);
+                    if (next != null) {arm(task, next);}}
+                List<DueRun> dueRuns = new ArrayList<>();
+                for (Map.Entry<Task, List<ZonedDateTime>> entry : slots.entrySet()) {
+                    List<ZonedDateTime> runs = selectRuns(entry.getKey(), entry.getValue(), now);
+                    if (!runs.isEmpty()) {dueRuns.add(new DueRun(entry.getKey(), runs));}}
+                if (!dueRuns.isEmpty()) {scheduleDueTasks(dueRuns);}}
         } catch (Exception e) {
             plugin.getLogger().severe("Error in time checker: " + e.getMessage());
             if (plugin.getConfig().getBoolean("debug", false))
-            {e.printStackTrace();}}
-    }
-    private void checkAndExecuteTasks(LocalTime currentTime, String currentMinute) {
-        for (Integer taskId : plugin.getTaskManager().getAllTasks().keySet()) {String taskKey = taskId + ":" + currentMinute;
-            if (executedThisMinute.contains(taskKey)) {continue;}
-            if (plugin.getTaskManager().shouldExecuteTask(taskId, currentTime)) {
-                executedThisMinute.add(taskKey);
-                plugin.getLogger().info("Task " + taskId + " scheduled for execution at " + currentMinute);
-                plugin.getDatabaseManager().hasTaskExecutedToday(taskId).thenAccept(hasExecuted -> {
-                            if (!hasExecuted) {
-                                plugin.getLogger().info("Executing task " + taskId + " - not executed today");
-                                plugin.getTaskManager().executeTask(taskId);}
-                            else
-                            {plugin.getLogger().info("Task " + taskId + " already executed today - skipping");}}).exceptionally(throwable -> {
-                            plugin.getLogger().severe("Error checking task execution status for task " + taskId + ": " + throwable.getMessage());throwable.printStackTrace();return null;});}}}
-    public LocalTime getCurrentServerTime() {return LocalTime.now();}
+            {e.printStackTrace();}
+        } finally {planNextWake();}}
+
+    /**
+     * The last {@code scheduler.max-catch-up-runs + 1} slots of {@code schedule} in
+     * {@code (from, to]}, ascending. Very dense schedules narrow the window instead of
+     * walking every slot.
+     */
+    private List<ZonedDateTime> slotsBetween(Schedule schedule, ZonedDateTime from, ZonedDateTime to) {
+        int keep = getMaxCatchUpRuns() + 1;
+        ZonedDateTime start = from;
+        while (true) {
+            ArrayDeque<ZonedDateTime> recent = new ArrayDeque<>(keep + 1);
+            int scanned = 0;
+            for (ZonedDateTime slot = schedule.nextAfter(start); slot != null && !slot.isAfter(to) && scanned < MAX_SLOT_SCAN; slot = schedule.nextAfter(slot)) {
+                scanned++;
+                recent.addLast(slot);
+                if (recent.size() > keep) {recent.removeFirst();}}
+            if (scanned < MAX_SLOT_SCAN) {return new ArrayList<>(recent);}
+            start = to.minusSeconds((to.toEpochSecond() - start.toEpochSecond()) / 2);}}
+
+    /**
+     * Chooses which of {@code slots} (ascending) should actually run. Slots already fired
+     * are dropped; slots later than the misfire threshold follow the task's misfire policy.
+     */
+    private List<ZonedDateTime> selectRuns(Task task, List<ZonedDateTime> slots, long now) {
+        long threshold = getMisfireThresholdSeconds();
+        List<ZonedDateTime> missed = new ArrayList<>();
+        List<ZonedDateTime> onTime = new ArrayList<>();
+        for (ZonedDateTime slot : slots) {
+            if (plugin.getExecutionStore().hasTaskFired(task.getId(), slot)) {
+                plugin.getLogger().info("Task " + task.getId() + " already executed for " + slot.toLocalDateTime() + " - skipping");
+                plugin.getMetrics().getSkipsAlreadyFired().increment();
+                continue;}
+            if (now - slot.toEpochSecond() > threshold) {missed.add(slot);} else {onTime.add(slot);}}
+        List<ZonedDateTime> runs = new ArrayList<>();
+        if (!missed.isEmpty()) {
+            runs.addAll(task.getMisfirePolicy().select(missed, getMaxCatchUpRuns()));
+            if (runs.isEmpty()) {
+                plugin.getLogger().warning("Task " + task.getId() + " missed " + missed.size() + " run(s), last due " + missed.get(missed.size() - 1).toLocalDateTime() + " - skipping (misfire policy: " + task.getMisfirePolicy().getConfigName() + ")");
+            } else {
+                plugin.getLogger().info("Task " + task.getId() + " missed " + missed.size() + " run(s) - catching up " + runs.size() + " (misfire policy: " + task.getMisfirePolicy().getConfigName() + ")");}
+            plugin.getMetrics().getSkipsMisfire().add(missed.size() - runs.size());}
+        runs.addAll(onTime);
+        return runs;}
+
+    /** Replays runs missed while the server was down, using each task's persisted last fire time. */
+    private void catchUpMisfires() {
+        long now = nowEpoch();
+        long start = wheel.getCurrent();
+        ZonedDateTime to = toZoned(start);
+        List<DueRun> dueRuns = new ArrayList<>();
+        for (Task task : plugin.getTaskManager().getAllTasks().values()) {
+            Long lastFire = plugin.getExecutionStore().getLastFireEpoch(task.getId());
+            if (lastFire == null || lastFire >= start) {continue;}
+            List<ZonedDateTime> slots = slotsBetween(task.getSchedule(), toZoned(lastFire), to);
+            if (slots.isEmpty()) {continue;}
+            List<ZonedDateTime> runs = selectRuns(task, slots, now);
+            if (!runs.isEmpty()) {dueRuns.add(new DueRun(task, runs));}}
+        if (!dueRuns.isEmpty()) {scheduleDueTasks(dueRuns);}}
+
+    /**
+     * Fires due tasks in priority order. When a stagger window is configured, staggered
+     * tasks are spread evenly across it instead of all firing at once.
+     */
+    private void scheduleDueTasks(List<DueRun> dueRuns) {
+        dueRuns.sort(Comparator.comparing(DueRun::task, FIRE_ORDER));
+        long windowMs = Math.max(0, plugin.getConfig().getInt("execution.stagger-window-seconds", 0)) * 1000L;
+        List<DueRun> immediate = new ArrayList<>();
+        List<DueRun> staggered = new ArrayList<>();
+        for (DueRun run : dueRuns) {
+            if (windowMs > 0 && run.task().isStaggered()) {staggered.add(run);} else {immediate.add(run);}}
+        for (int i = 0; i < staggered.size(); i++) {
+            DueRun run = staggered.get(i);
+            long delayMs = windowMs * i / staggered.size();
+            if (delayMs == 0) {immediate.add(run);continue;}
+            if (plugin.getConfig().getBoolean("debug", false)) {
+                plugin.getLogger().info("Task " + run.task().getId() + " staggered by " + delayMs + "ms");}
+            scheduler.schedule(() -> fireTasks(List.of(run)), delayMs, TimeUnit.MILLISECONDS);}
+        immediate.sort(Comparator.comparing(DueRun::task, FIRE_ORDER));
+        fireTasks(immediate);}
+
+    private void fireTasks(List<DueRun> batch) {
+        for (DueRun run : batch) {
+            int taskId = run.task().getId();
+            plugin.getLogger().info("Executing task " + taskId + " - scheduled for " + run.slots().get(run.slots().size() - 1).toLocalDateTime());
+            plugin.getTaskManager().executeTask(taskId, run.slots());}}
+
+    private ZonedDateTime toZoned(long epochSecond) {return Instant.ofEpochSecond(epochSecond).atZone(zone);}
+
+    private static long nowEpoch() {return System.currentTimeMillis() / 1000L;}
+
+    private long getMisfireThresholdSeconds() {
+        return Math.max(1L, plugin.getConfig().getLong("scheduler.misfire-threshold-seconds", 60L));}
+
+    private int getMaxCatchUpRuns() {
+        return Math.max(1, plugin.getConfig().getInt("scheduler.max-catch-up-runs", 7));}
+
+    public LocalTime getCurrentServerTime() {return LocalTime.now(zone);}
+
+    public ZonedDateTime getCurrentServerDateTime() {return ZonedDateTime.now(zone);}
+
+    public ZoneId getZone() {return zone;}
 
     public void shutdown() {
-        if (timeCheckTask != null && !timeCheckTask.isCancelled()) {timeCheckTask.cancel();
-            plugin.getLogger().info("Time checker stopped");}executedThisMinute.clear();}
+        scheduler.shutdownNow();
+        plugin.getLogger().info("Time checker stopped");}
 
     public void testTime() {
         plugin.getLogger().info("=== Manual Time Test ===");
         LocalTime currentTime = getCurrentServerTime();
         plugin.getLogger().info("Current system time: " + currentTime.format(DateTimeFormatter.ofPattern("HH:mm:ss")));
         plugin.getLogger().info("Testing database connection...");
-        plugin.getDatabaseManager().hasTaskExecutedToday(999).thenAccept(result -> {
+        plugin.getExecutionStore().hasTaskExecutedToday(999).thenAccept(result -> {
                     plugin.getLogger().info("Database test completed successfully. Test query result: " + result);}).exceptionally(throwable -> {
                     plugin.getLogger().severe("Database test failed: " + throwable.getMessage());throwable.printStackTrace();
                     return null;});}
-}
\ No newline at end of file
+
+    private record DueRun(Task task, List<ZonedDateTime> slots) {}
+}
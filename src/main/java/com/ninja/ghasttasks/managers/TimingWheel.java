@@ -0,0 +1,138 @@
+package com.ninja.ghasttasks.managers;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Hierarchical timing wheel with one second resolution. Four levels of 64 buckets cover
+ * about 194 days; later deadlines wait in an overflow queue. Entries in higher levels are
+ * cascaded down as the wheel turns, so advancing only touches the buckets that come due and
+ * the cost of a tick is proportional to the number of due entries, not the number of
+ * scheduled ones. Not thread safe; {@link TimeManager} only uses it from its scheduler thread.
+ */
+final class TimingWheel<T> {
+    private static final int LEVEL_BITS = 6;
+    private static final int SLOTS = 1 << LEVEL_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+    private static final long SPAN = 1L << (LEVEL_BITS * LEVELS);
+    /** Gaps longer than this are handled by re-inserting everything instead of turning the wheel second by second. */
+    private static final long MAX_STEPS = SLOTS * SLOTS;
+
+    private final List<List<Entry<T>>> buckets = new ArrayList<>(LEVELS * SLOTS);
+    private final PriorityQueue<Entry<T>> overflow = new PriorityQueue<>(Comparator.comparingLong(Entry::deadline));
+    private long current;
+    private int size;
+
+    TimingWheel(long startEpochSecond) {
+        for (int i = 0; i < LEVELS * SLOTS; i++) {buckets.add(new ArrayList<>(0));}
+        this.current = startEpochSecond;}
+
+    /**
+     * Schedules {@code value} for {@code deadline}; returns the entry, which {@link #remove}
+     * takes back, or null if the deadline is not in the future.
+     */
+    Entry<T> add(T value, long deadline) {
+        if (deadline <= current) {return null;}
+        Entry<T> entry = new Entry<>(value, deadline);
+        place(entry);
+        size++;
+        return entry;}
+
+    /**
+     * Takes {@code entry} off the wheel before it comes due. Cascading only moves an entry to
+     * finer levels, so it is in the bucket its deadline maps to on one of the levels, or in
+     * the overflow queue; only those are searched. Returns false if it was not scheduled.
+     */
+    boolean remove(Entry<T> entry) {
+        if (entry.deadline() <= current) {return false;}
+        boolean removed = false;
+        for (int level = 0; level < LEVELS && !removed; level++) {
+            removed = bucket(level, entry.deadline()).removeIf(candidate -> candidate == entry);}
+        if (!removed) {removed = overflow.removeIf(candidate -> candidate == entry);}
+        if (removed) {size--;}
+        return removed;}
+
+    /** Turns the wheel to {@code now} and returns every entry whose deadline has passed, in deadline order. */
+    List<Entry<T>> advanceTo(long now) {
+        List<Entry<T>> due = new ArrayList<>();
+        if (now <= current) {return due;}
+        if (now - current > MAX_STEPS) {
+            List<Entry<T>> all = drain();
+            current = now;
+            for (Entry<T> entry : all) {
+                if (entry.deadline() <= now) {due.add(entry);} else {place(entry);}}
+            size -= due.size();
+            due.sort(Comparator.comparingLong(Entry::deadline));
+            return due;}
+        while (current < now) {
+            current++;
+            if ((current & (SPAN / SLOTS - 1)) == 0) {pullOverflow();}
+            for (int level = LEVELS - 1; level > 0; level--) {
+                if ((current & ((1L << (LEVEL_BITS * level)) - 1)) == 0) {cascade(level, due);}}
+            List<Entry<T>> bucket = bucket(0, current);
+            if (!bucket.isEmpty()) {
+                due.addAll(bucket);
+                bucket.clear();}}
+        size -= due.size();
+        return due;}
+
+    /** Earliest scheduled deadline, or {@link Long#MAX_VALUE} when the wheel is empty. */
+    long nextDeadline() {
+        if (size == 0) {return Long.MAX_VALUE;}
+        long best = overflow.isEmpty() ? Long.MAX_VALUE : overflow.peek().deadline();
+        for (int level = 0; level < LEVELS; level++) {
+            int start = (int) ((current >>> (LEVEL_BITS * level)) & SLOT_MASK);
+            for (int i = 1; i <= SLOTS; i++) {
+                List<Entry<T>> bucket = buckets.get(level * SLOTS + ((start + i) & SLOT_MASK));
+                if (bucket.isEmpty()) {continue;}
+                for (Entry<T> entry : bucket) {best = Math.min(best, entry.deadline());}
+                break;}}
+        return best;}
+
+    /** Drops every entry and restarts the wheel at {@code startEpochSecond}. */
+    void reset(long startEpochSecond) {
+        for (List<Entry<T>> bucket : buckets) {bucket.clear();}
+        overflow.clear();
+        size = 0;
+        current = startEpochSecond;}
+
+    int size() {return size;}
+
+    long getCurrent() {return current;}
+
+    private void place(Entry<T> entry) {
+        long delta = entry.deadline() - current;
+        if (delta >= SPAN) {overflow.add(entry);return;}
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (LEVEL_BITS * (level + 1))) {level++;}
+        bucket(level, entry.deadline()).add(entry);}
+
+    private List<Entry<T>> bucket(int level, long deadline) {
+        return buckets.get(level * SLOTS + (int) ((deadline >>> (LEVEL_BITS * level)) & SLOT_MASK));}
+
+    /** Moves the entries of the current bucket of {@code level} down to finer levels. */
+    private void cascade(int level, List<Entry<T>> due) {
+        List<Entry<T>> bucket = bucket(level, current);
+        if (bucket.isEmpty()) {return;}
+        List<Entry<T>> moving = new ArrayList<>(bucket);
+        bucket.clear();
+        for (Entry<T> entry : moving) {
+            if (entry.deadline() <= current) {due.add(entry);} else {place(entry);}}}
+
+    private void pullOverflow() {
+        while (!overflow.isEmpty() && overflow.peek().deadline() - current < SPAN) {place(overflow.poll());}}
+
+    private List<Entry<T>> drain() {
+        List<Entry<T>> all = new ArrayList<>(size);
+        for (List<Entry<T>> bucket : buckets) {
+            all.addAll(bucket);
+            bucket.clear();}
+        all.addAll(overflow);
+        overflow.clear();
+        return all;}
+
+    record Entry<T>(T value, long deadline) {}
+}
@@ -0,0 +1,16 @@
+package com.ninja.ghasttasks.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** Monotonic counter; increments never contend, reads sum the stripes. */
+public final class Counter {
+    private final LongAdder value = new LongAdder();
+
+    Counter() {}
+
+    public void increment() {value.increment();}
+
+    public void add(long amount) {value.add(amount);}
+
+    public long get() {return value.sum();}
+}
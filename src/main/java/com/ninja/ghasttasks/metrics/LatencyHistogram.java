@@ -0,0 +1,60 @@
+package com.ninja.ghasttasks.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histogram with fixed bucket bounds from 50µs to 10s. Recording is one bounds
+ * lookup and two atomic adds, with no locks or allocation, so it is cheap enough for the
+ * main thread. Counts are kept per bucket and made cumulative only when read.
+ */
+public final class LatencyHistogram {
+    /** Upper bounds in nanoseconds; anything slower lands in the implicit +Inf bucket. */
+    static final long[] BOUNDS_NANOS = {
+            50_000L, 100_000L, 250_000L, 500_000L,
+            1_000_000L, 2_500_000L, 5_000_000L, 10_000_000L, 25_000_000L, 50_000_000L,
+            100_000_000L, 250_000_000L, 500_000_000L, 1_000_000_000L, 2_500_000_000L, 10_000_000_000L};
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS_NANOS.length + 1);
+    private final LongAdder sumNanos = new LongAdder();
+
+    LatencyHistogram() {}
+
+    public void record(long nanos) {
+        int bucket = 0;
+        while (bucket < BOUNDS_NANOS.length && nanos > BOUNDS_NANOS[bucket]) {bucket++;}
+        buckets.incrementAndGet(bucket);
+        sumNanos.add(Math.max(0L, nanos));}
+
+    /** Records the time elapsed since {@code startNanos}, a {@link System#nanoTime()} reading. */
+    public void recordSince(long startNanos) {record(System.nanoTime() - startNanos);}
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < buckets.length(); i++) {count += buckets.get(i);}
+        return count;}
+
+    public long getSumNanos() {return sumNanos.sum();}
+
+    /**
+     * Upper bound of the bucket holding the {@code quantile} (0..1) sample, in nanoseconds.
+     * Returns 0 when empty and -1 when the sample is beyond the last bound.
+     */
+    public long quantileUpperBound(double quantile) {
+        long[] counts = snapshot();
+        long total = 0;
+        for (long count : counts) {total += count;}
+        if (total == 0) {return 0L;}
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int i = 0; i < BOUNDS_NANOS.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {return BOUNDS_NANOS[i];}}
+        return -1L;}
+
+    /** Per-bucket counts, not cumulative; the last entry is the +Inf bucket. */
+    long[] snapshot() {
+        long[] counts = new long[buckets.length()];
+        for (int i = 0; i < counts.length; i++) {counts[i] = buckets.get(i);}
+        return counts;}
+}
@@ -0,0 +1,133 @@
+package com.ninja.ghasttasks.metrics;
+
+import com.ninja.ghasttasks.GhastTasks;
+import com.ninja.ghasttasks.database.ExecutionStore;
+import com.ninja.ghasttasks.managers.CommandDispatcher;
+import com.ninja.ghasttasks.managers.TaskManager;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.LongSupplier;
+
+/**
+ * The plugin's metrics: counters and latency histograms updated lock-free from any thread,
+ * plus gauges read on demand. Everything is registered here, in exposition order, and
+ * rendered in the Prometheus text format by {@link #writePrometheus(StringBuilder)}.
+ */
+public final class Metrics {
+    private final List<Registered> registered = new ArrayList<>();
+
+    private final Counter taskFires = counter("ghasttasks_task_fires_total", "Task runs started", "");
+    private final Counter skipsAlreadyFired = counter("ghasttasks_task_skips_total", "Task runs skipped", "reason=\"already_fired\"");
+    private final Counter skipsMisfire = counter("ghasttasks_task_skips_total", "Task runs skipped", "reason=\"misfire\"");
+    private final Counter skipsRunning = counter("ghasttasks_task_skips_total", "Task runs skipped", "reason=\"running\"");
+    private final Counter skipsLease = counter("ghasttasks_task_skips_total", "Task runs skipped", "reason=\"lease\"");
+    private final Counter taskFailures = counter("ghasttasks_task_failures_total", "Task runs with at least one failed command", "");
+    private final Counter commandsDispatched = counter("ghasttasks_commands_dispatched_total", "Task commands dispatched", "");
+    private final Counter commandFailures = counter("ghasttasks_command_failures_total", "Task commands that threw", "");
+    private final Counter commandsRejected = counter("ghasttasks_commands_rejected_total", "Task commands the server reported as failed", "");
+    private final LatencyHistogram commandDispatch = histogram("ghasttasks_command_dispatch_seconds", "Main-thread time per dispatched command");
+    private final LatencyHistogram dbQuery = histogram("ghasttasks_db_query_seconds", "Database read latency");
+    private final LatencyHistogram dbCommit = histogram("ghasttasks_db_commit_seconds", "Latency of execution record write transactions");
+    private final Counter placeholderRequests = counter("ghasttasks_placeholder_requests_total", "PlaceholderAPI requests", "");
+    private final Counter placeholderHits = counter("ghasttasks_placeholder_snapshot_hits_total", "PlaceholderAPI requests served from the cached snapshot", "");
+
+    public Metrics(GhastTasks plugin) {
+        gauge("ghasttasks_tasks_loaded", "Tasks currently loaded", () -> {
+            TaskManager taskManager = plugin.getTaskManager();
+            return taskManager == null ? 0 : taskManager.getTaskCount();});
+        gauge("ghasttasks_db_write_queue_depth", "Execution records waiting to be written", () -> {
+            ExecutionStore database = plugin.getExecutionStore();
+            return database == null ? 0 : database.getPendingWrites();});
+        gauge("ghasttasks_dispatch_queue_jobs", "Task runs queued or dispatching on the main thread", () -> {
+            CommandDispatcher dispatcher = plugin.getCommandDispatcher();
+            return dispatcher == null ? 0 : dispatcher.getPendingJobs();});}
+
+    public Counter getTaskFires() {return taskFires;}
+
+    /** Runs skipped because the slot was already recorded as executed. */
+    public Counter getSkipsAlreadyFired() {return skipsAlreadyFired;}
+
+    /** Runs dropped by the misfire policy. */
+    public Counter getSkipsMisfire() {return skipsMisfire;}
+
+    /** Runs skipped because the task was still executing or queued. */
+    public Counter getSkipsRunning() {return skipsRunning;}
+
+    /** Runs left to another server that claimed the slot first. */
+    public Counter getSkipsLease() {return skipsLease;}
+
+    public Counter getTaskFailures() {return taskFailures;}
+
+    public Counter getCommandsDispatched() {return commandsDispatched;}
+
+    public Counter getCommandFailures() {return commandFailures;}
+
+    /** Commands that ran without throwing but returned false: unknown, or wrong usage. */
+    public Counter getCommandsRejected() {return commandsRejected;}
+
+    public LatencyHistogram getCommandDispatch() {return commandDispatch;}
+
+    public LatencyHistogram getDbQuery() {return dbQuery;}
+
+    public LatencyHistogram getDbCommit() {return dbCommit;}
+
+    public Counter getPlaceholderRequests() {return placeholderRequests;}
+
+    public Counter getPlaceholderHits() {return placeholderHits;}
+
+    /** Value of the gauge named {@code name}, or 0 if there is none. */
+    public long gaugeValue(String name) {
+        for (Registered entry : registered) {
+            if (entry.name.equals(name) && entry.metric instanceof LongSupplier gauge) {return gauge.getAsLong();}}
+        return 0L;}
+
+    /** Appends every metric in the Prometheus text exposition format (version 0.0.4). */
+    public void writePrometheus(StringBuilder out) {
+        Set<String> described = new HashSet<>();
+        for (Registered entry : registered) {
+            if (described.add(entry.name)) {
+                out.append("# HELP ").append(entry.name).append(' ').append(entry.help).append('\n');
+                out.append("# TYPE ").append(entry.name).append(' ').append(entry.type()).append('\n');}
+            if (entry.metric instanceof Counter counter) {
+                sample(out, entry.name, entry.labels, counter.get());
+            } else if (entry.metric instanceof LongSupplier gauge) {
+                sample(out, entry.name, entry.labels, gauge.getAsLong());
+            } else if (entry.metric instanceof LatencyHistogram histogram) {
+                long[] counts = histogram.snapshot();
+                long cumulative = 0;
+                for (int i = 0; i < LatencyHistogram.BOUNDS_NANOS.length; i++) {
+                    cumulative += counts[i];
+                    out.append(entry.name).append("_bucket{le=\"").append(seconds(LatencyHistogram.BOUNDS_NANOS[i])).append("\"} ").append(cumulative).append('\n');}
+                cumulative += counts[counts.length - 1];
+                out.append(entry.name).append("_bucket{le=\"+Inf\"} ").append(cumulative).append('\n');
+                out.append(entry.name).append("_sum ").append(seconds(histogram.getSumNanos())).append('\n');
+                out.append(entry.name).append("_count ").append(cumulative).append('\n');}}}
+
+    private static void sample(StringBuilder out, String name, String labels, long value) {
+        out.append(name);
+        if (!labels.isEmpty()) {out.append('{').append(labels).append('}');}
+        out.append(' ').append(value).append('\n');}
+
+    private static String seconds(long nanos) {return Double.toString(nanos / 1_000_000_000.0);}
+
+    private Counter counter(String name, String help, String labels) {
+        Counter counter = new Counter();
+        registered.add(new Registered(name, help, labels, counter));
+        return counter;}
+
+    private LatencyHistogram histogram(String name, String help) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        registered.add(new Registered(name, help, "", histogram));
+        return histogram;}
+
+    private void gauge(String name, String help, LongSupplier supplier) {
+        registered.add(new Registered(name, help, "", supplier));}
+
+    private record Registered(String name, String help, String labels, Object metric) {
+        String type() {
+            if (metric instanceof Counter) {return "counter";}
+            if (metric instanceof LatencyHistogram) {return "histogram";}
+            return "gauge";}}
+}
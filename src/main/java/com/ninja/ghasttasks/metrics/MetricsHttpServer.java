@@ -0,0 +1,68 @@
+package com.ninja.ghasttasks.metrics;
+
+import com.ninja.ghasttasks.GhastTasks;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Optional Prometheus scrape endpoint on the JDK's built-in HTTP server. It binds to
+ * {@code metrics.http.host} (localhost by default) and serves {@code /metrics} from a
+ * single background thread, so scrapes never touch the main thread.
+ */
+public class MetricsHttpServer {
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private final GhastTasks plugin;
+    private final Metrics metrics;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public MetricsHttpServer(GhastTasks plugin, Metrics metrics) {
+        this.plugin = plugin;
+        this.metrics = metrics;}
+
+    public void start() {
+        if (server != null) {return;}
+        String host = plugin.getConfig().getString("metrics.http.host", "127.0.0.1");
+        int port = plugin.getConfig().getInt("metrics.http.port", 9464);
+        try {
+            server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Could not start metrics endpoint on " + host + ":" + port + ": " + e.getMessage());
+            return;}
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "GhastTasks-Metrics");
+            thread.setDaemon(true);
+            return thread;});
+        server.setExecutor(executor);
+        server.createContext("/metrics", this::handle);
+        server.start();
+        plugin.getLogger().info("Serving metrics on http://" + host + ":" + port + "/metrics");}
+
+    public void stop() {
+        if (server == null) {return;}
+        server.stop(0);
+        executor.shutdownNow();
+        server = null;
+        executor = null;}
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;}
+            StringBuilder text = new StringBuilder(4096);
+            metrics.writePrometheus(text);
+            byte[] body = text.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                return;}
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {out.write(body);}}}
+}
@@ -3,7 +3,9 @@ package com.ninja.ghasttasks.models;
 public enum CommandExecution {
     CONSOLE("[console]"),
     OP("[op]"),
-    PLAYER("[player]");
+    PLAYER("[player]"),
+    /** Runs from the console once for every online player, spread across ticks. */
+    EACH_PLAYER("[each-player]");
     private final String prefix;
     CommandExecution(String prefix) {
         this.prefix = prefix;
@@ -11,17 +13,19 @@ public enum CommandExecution {
     public String getPrefix() {
         return prefix;
     }
+    private boolean isPrefixOf(String trimmedCommand) {
+        return trimmedCommand.regionMatches(true, 0, prefix, 0, prefix.length());}
     public static CommandExecution fromCommand(String command) {if (command == null || command.trim().isEmpty()) {return CONSOLE;}
-        String lowerCommand = command.toLowerCase().trim();
-        if (lowerCommand.startsWith("[console]")) {return CONSOLE;
-        } else if (lowerCommand.startsWith("[op]")) {return OP;
-        } else if (lowerCommand.startsWith("[player]")) {return PLAYER;}
+        String trimmedCommand = command.trim();
+        for (CommandExecution type : values()) {
+            if (type.isPrefixOf(trimmedCommand)) {return type;}}
         return CONSOLE; }
+    /** Removes the execution prefix and the whitespace after it. Used when commands are compiled, not per run. */
     public static String stripPrefix(String command) {
         if (command == null || command.trim().isEmpty()) {return "";}
-        CommandExecution type = fromCommand(command);
         String trimmedCommand = command.trim();
-        if (type != CONSOLE || trimmedCommand.toLowerCase().startsWith("[console]"))
-        {String pattern = "(?i)^\\[" + type.name() + "\\]\\s*";return trimmedCommand.replaceFirst(pattern, "");}
+        CommandExecution type = fromCommand(trimmedCommand);
+        if (type.isPrefixOf(trimmedCommand))
+        {return trimmedCommand.substring(type.prefix.length()).trim();}
         return trimmedCommand;}
 }
\ No newline at end of file
@@ -0,0 +1,142 @@
+package com.ninja.ghasttasks.models;
+
+import me.clip.placeholderapi.PlaceholderAPI;
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Player;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A command with variables, split once at load into literal and variable segments.
+ * Built-in variables are written in braces ({@code {task_id}}, {@code {date}}, {@code {time}},
+ * {@code {online}}, {@code {player}}); PlaceholderAPI placeholders keep their usual
+ * {@code %identifier_params%} form and are the only text handed to PlaceholderAPI.
+ * Unknown brace names are kept as literal text, so JSON components pass through untouched.
+ */
+public final class CommandTemplate {
+    private final Segment[] segments;
+    private final int literalLength;
+
+    private CommandTemplate(Segment[] segments, int literalLength) {
+        this.segments = segments;
+        this.literalLength = literalLength;}
+
+    /** Parses {@code command}; returns null when it contains no variables and can be dispatched as-is. */
+    public static CommandTemplate parse(String command) {
+        List<Segment> segments = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int literalLength = 0;
+        boolean hasVariables = false;
+        int length = command.length();
+        int i = 0;
+        while (i < length) {
+            char c = command.charAt(i);
+            int end = -1;
+            Segment variable = null;
+            if (c == '{') {
+                end = command.indexOf('}', i + 1);
+                Variable builtIn = end < 0 ? null : Variable.byName(command, i + 1, end);
+                if (builtIn != null) {variable = builtIn;}
+            } else if (c == '%') {
+                end = placeholderEnd(command, i);
+                if (end > 0) {variable = new Placeholder(command.substring(i, end + 1));}}
+            if (variable == null) {
+                literal.append(c);
+                i++;
+                continue;}
+            if (literal.length() > 0) {
+                segments.add(new Literal(literal.toString()));
+                literalLength += literal.length();
+                literal.setLength(0);}
+            segments.add(variable);
+            hasVariables = true;
+            i = end + 1;}
+        if (!hasVariables) {return null;}
+        if (literal.length() > 0) {
+            segments.add(new Literal(literal.toString()));
+            literalLength += literal.length();}
+        return new CommandTemplate(segments.toArray(new Segment[0]), literalLength);}
+
+    /**
+     * Index of the closing {@code %} of a placeholder starting at {@code start}, or -1. A
+     * placeholder is an identifier and parameters joined by an underscore, so stray percent
+     * signs such as "50% off" stay literal.
+     */
+    private static int placeholderEnd(String command, int start) {
+        boolean underscore = false;
+        for (int i = start + 1; i < command.length(); i++) {
+            char c = command.charAt(i);
+            if (c == '%') {return underscore && i > start + 2 ? i : -1;}
+            if (c == '_') {underscore = true;}
+            else if (!Character.isLetterOrDigit(c)) {return -1;}}
+        return -1;}
+
+    /** Whether {@code label}, the first word of the command, is plain text followed by a space. */
+    boolean hasLiteralLabel(String label) {
+        return segments[0] instanceof Literal first && first.text.length() > label.length() && first.text.charAt(label.length()) == ' ';}
+
+    /**
+     * Binds this template for one run into {@code out}, which is cleared first and may be
+     * reused between runs. {@code player} is who the command runs for: the sender itself
+     * when it is a player, or the target of a per-player command. Main thread only, since
+     * PlaceholderAPI expansions expect it.
+     */
+    public String bind(StringBuilder out, Task task, ZonedDateTime time, CommandSender sender, Player player) {
+        out.setLength(0);
+        out.ensureCapacity(literalLength + 16 * segments.length);
+        CommandSender subject = player != null ? player : sender;
+        for (Segment segment : segments) {segment.appendTo(out, task, time, subject);}
+        return out.toString();}
+
+    private sealed interface Segment permits Literal, Variable, Placeholder {
+        void appendTo(StringBuilder out, Task task, ZonedDateTime time, CommandSender sender);}
+
+    private record Literal(String text) implements Segment {
+        @Override
+        public void appendTo(StringBuilder out, Task task, ZonedDateTime time, CommandSender sender) {out.append(text);}}
+
+    private record Placeholder(String text) implements Segment {
+        @Override
+        public void appendTo(StringBuilder out, Task task, ZonedDateTime time, CommandSender sender) {
+            out.append(PlaceholderAPI.setPlaceholders(sender instanceof Player player ? player : null, text));}}
+
+    private enum Variable implements Segment {
+        TASK_ID("task_id") {
+            @Override
+            public void appendTo(StringBuilder out, Task task, ZonedDateTime time, CommandSender sender) {out.append(task.getId());}},
+        DATE("date") {
+            @Override
+            public void appendTo(StringBuilder out, Task task, ZonedDateTime time, CommandSender sender) {
+                out.append(time.getYear()).append('-');
+                pad(out, time.getMonthValue()).append('-');
+                pad(out, time.getDayOfMonth());}},
+        TIME("time") {
+            @Override
+            public void appendTo(StringBuilder out, Task task, ZonedDateTime time, CommandSender sender) {
+                pad(out, time.getHour()).append(':');
+                pad(out, time.getMinute()).append(':');
+                pad(out, time.getSecond());}},
+        ONLINE("online") {
+            @Override
+            public void appendTo(StringBuilder out, Task task, ZonedDateTime time, CommandSender sender) {out.append(Bukkit.getOnlinePlayers().size());}},
+        PLAYER("player") {
+            @Override
+            public void appendTo(StringBuilder out, Task task, ZonedDateTime time, CommandSender sender) {out.append(sender.getName());}};
+
+        private static final Variable[] VALUES = values();
+        private final String key;
+
+        Variable(String key) {this.key = key;}
+
+        static Variable byName(String command, int start, int end) {
+            for (Variable variable : VALUES) {
+                if (variable.key.length() == end - start && command.regionMatches(start, variable.key, 0, end - start)) {return variable;}}
+            return null;}
+
+        private static StringBuilder pad(StringBuilder out, int value) {
+            if (value < 10) {out.append('0');}
+            return out.append(value);}
+    }
+}
@@ -0,0 +1,86 @@
+package com.ninja.ghasttasks.models;
+
+import org.bukkit.command.Command;
+import java.util.Locale;
+
+/**
+ * A task command line parsed once when the task is loaded: how it runs, the command text
+ * without its prefix, and that text pre-split into label and arguments the way the command
+ * map splits it. Commands with variables also carry their parsed {@link CommandTemplate}.
+ * The resolved {@link Command} is cached here by the dispatcher; that cache is only touched
+ * on the main thread and is not part of equality.
+ */
+public final class CompiledCommand {
+    private final String source;
+    private final CommandExecution execution;
+    private final String command;
+    private final String label;
+    private final String[] args;
+    private final CommandTemplate template;
+    private final boolean literalLabel;
+    private Command target;
+    private long targetGeneration = -1;
+
+    private CompiledCommand(String source, CommandExecution execution, String command) {
+        this.source = source;
+        this.execution = execution;
+        this.command = command;
+        String[] parts = splitLikeCommandMap(command);
+        this.label = parts[0].toLowerCase(Locale.ENGLISH);
+        this.args = new String[parts.length - 1];
+        System.arraycopy(parts, 1, args, 0, args.length);
+        this.template = CommandTemplate.parse(command);
+        this.literalLabel = template == null || template.hasLiteralLabel(parts[0]);}
+
+    /**
+     * Splits {@code commandLine} on single spaces as {@code SimpleCommandMap} does: empty
+     * arguments between spaces are kept, trailing ones are dropped.
+     */
+    public static String[] splitLikeCommandMap(String commandLine) {return commandLine.split(" ");}
+
+    /** Parses {@code line}; throws {@link IllegalArgumentException} for blank lines or a bare prefix. */
+    public static CompiledCommand compile(String line) {
+        if (line == null || line.trim().isEmpty()) {throw new IllegalArgumentException("command is empty");}
+        String trimmed = line.trim();
+        CommandExecution execution = CommandExecution.fromCommand(trimmed);
+        String command = CommandExecution.stripPrefix(trimmed).trim();
+        if (command.isEmpty()) {throw new IllegalArgumentException("command is empty after its " + execution.getPrefix() + " prefix: " + trimmed);}
+        return new CompiledCommand(trimmed, execution, command);}
+
+    /** The line as written in the config. */
+    public String getSource() {return source;}
+
+    public CommandExecution getExecution() {return execution;}
+
+    /** The command text without its execution prefix. */
+    public String getCommand() {return command;}
+
+    /** The lower-cased command label, as the command map looks it up. */
+    public String getLabel() {return label;}
+
+    /** A fresh copy of the arguments, since commands may modify the array they are given. */
+    public String[] copyArgs() {return args.clone();}
+
+    /** The parsed template, or null when the command has no variables. */
+    public CommandTemplate getTemplate() {return template;}
+
+    /** Whether the label is plain text, so the cached target can be used even for templates. */
+    public boolean hasLiteralLabel() {return literalLabel;}
+
+    /** The cached target if it was resolved during command map {@code generation}, else null. */
+    public Command getCachedTarget(long generation) {return targetGeneration == generation ? target : null;}
+
+    public void cacheTarget(Command target, long generation) {
+        this.target = target;
+        this.targetGeneration = target == null ? -1 : generation;}
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof CompiledCommand other && source.equals(other.source));}
+
+    @Override
+    public int hashCode() {return source.hashCode();}
+
+    @Override
+    public String toString() {return source;}
+}
@@ -0,0 +1,146 @@
+package com.ninja.ghasttasks.models;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+
+/**
+ * Cron-style schedule. Accepts the classic five fields ({@code minute hour day month weekday})
+ * or six fields with leading seconds. Each field supports {@code *}, numbers, ranges
+ * ({@code 1-5}), steps ({@code *}{@code /15}, {@code 10-50/10}) and comma lists. Weekdays
+ * run 0-7 with both 0 and 7 meaning Sunday. Fields are compiled to bitmasks once, so finding
+ * the next fire time is a few mask lookups per candidate day.
+ */
+public final class CronSchedule implements Schedule {
+    /** Upper bound on days searched before concluding the expression never matches (e.g. 30 February). */
+    private static final int MAX_SEARCH_DAYS = 366 * 5;
+    private static final int SECONDS_PER_DAY = 24 * 60 * 60;
+
+    private final String expression;
+    private final long seconds;
+    private final long minutes;
+    private final long hours;
+    private final long daysOfMonth;
+    private final long months;
+    private final long daysOfWeek;
+    private final boolean dayOfMonthRestricted;
+    private final boolean dayOfWeekRestricted;
+
+    private CronSchedule(String expression, long seconds, long minutes, long hours, long daysOfMonth, long months, long daysOfWeek,
+                         boolean dayOfMonthRestricted, boolean dayOfWeekRestricted) {
+        this.expression = expression;
+        this.seconds = seconds;
+        this.minutes = minutes;
+        this.hours = hours;
+        this.daysOfMonth = daysOfMonth;
+        this.months = months;
+        this.daysOfWeek = daysOfWeek;
+        this.dayOfMonthRestricted = dayOfMonthRestricted;
+        this.dayOfWeekRestricted = dayOfWeekRestricted;}
+
+    public static CronSchedule parse(String expression) {
+        String[] fields = expression.trim().split("\\s+");
+        if (fields.length != 5 && fields.length != 6) {
+            throw new IllegalArgumentException("Cron expression must have 5 or 6 fields: " + expression);}
+        int offset = fields.length - 5;
+        long seconds = offset == 1 ? parseField(fields[0], 0, 59) : 1L;
+        long minutes = parseField(fields[offset], 0, 59);
+        long hours = parseField(fields[offset + 1], 0, 23);
+        long daysOfMonth = parseField(fields[offset + 2], 1, 31);
+        long months = parseField(fields[offset + 3], 1, 12);
+        long daysOfWeek = parseField(fields[offset + 4], 0, 7);
+        if ((daysOfWeek & (1L << 7)) != 0) {daysOfWeek = (daysOfWeek | 1L) & ~(1L << 7);}
+        return new CronSchedule(expression.trim(), seconds, minutes, hours, daysOfMonth, months, daysOfWeek,
+                !isWildcard(fields[offset + 2]), !isWildcard(fields[offset + 4]));}
+
+    private static boolean isWildcard(String field) {return field.equals("*") || field.equals("?");}
+
+    private static long parseField(String field, int min, int max) {
+        long mask = 0;
+        for (String part : field.split(",")) {
+            int step = 1;
+            String range = part;
+            int slash = part.indexOf('/');
+            if (slash >= 0) {
+                step = parseNumber(part.substring(slash + 1), 1, max, part);
+                range = part.substring(0, slash);}
+            int from;
+            int to;
+            if (range.equals("*") || range.equals("?")) {
+                from = min;to = max;
+            } else if (range.indexOf('-') > 0) {
+                int dash = range.indexOf('-');
+                from = parseNumber(range.substring(0, dash), min, max, part);
+                to = parseNumber(range.substring(dash + 1), min, max, part);
+                if (to < from) {throw new IllegalArgumentException("Invalid cron range: " + part);}
+            } else {
+                from = parseNumber(range, min, max, part);
+                to = slash >= 0 ? max : from;}
+            for (int value = from; value <= to; value += step) {mask |= 1L << value;}}
+        return mask;}
+
+    private static int parseNumber(String value, int min, int max, String part) {
+        try {
+            int number = Integer.parseInt(value);
+            if (number < min || number > max) {throw new IllegalArgumentException("Cron value " + number + " out of range " + min + "-" + max + " in: " + part);}
+            return number;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cron value '" + value + "' in: " + part);}}
+
+    @Override
+    public ZonedDateTime nextAfter(ZonedDateTime after) {
+        LocalDateTime start = after.toLocalDateTime().withNano(0).plusSeconds(1);
+        LocalDate day = start.toLocalDate();
+        int fromSecondOfDay = start.toLocalTime().toSecondOfDay();
+        for (int i = 0; i < MAX_SEARCH_DAYS; i++) {
+            if (matchesDay(day)) {
+                // In the second pass of a fall-back overlap the day's remaining slots in the
+                // repeated hour resolve to its first pass, which has already gone by; skip past them
+                for (int secondOfDay = nextSecondOfDay(fromSecondOfDay); secondOfDay >= 0;
+                     secondOfDay = secondOfDay + 1 < SECONDS_PER_DAY ? nextSecondOfDay(secondOfDay + 1) : -1) {
+                    ZonedDateTime candidate = day.atStartOfDay().plusSeconds(secondOfDay).atZone(after.getZone());
+                    if (candidate.isAfter(after)) {return candidate;}}}
+            day = day.plusDays(1);
+            fromSecondOfDay = 0;}
+        return null;}
+
+    private boolean matchesDay(LocalDate day) {
+        if ((months & (1L << day.getMonthValue())) == 0) {return false;}
+        boolean domMatch = (daysOfMonth & (1L << day.getDayOfMonth())) != 0;
+        boolean dowMatch = (daysOfWeek & (1L << (day.getDayOfWeek().getValue() % 7))) != 0;
+        if (dayOfMonthRestricted && dayOfWeekRestricted) {return domMatch || dowMatch;}
+        return domMatch && dowMatch;}
+
+    /** First matching second of the day at or after {@code from}, or -1 if none is left today. */
+    private int nextSecondOfDay(int from) {
+        int hour = from / 3600;
+        int minute = (from / 60) % 60;
+        int second = from % 60;
+        for (int h = nextBit(hours, hour); h >= 0 && h < 24; h = nextBit(hours, h + 1)) {
+            int startMinute = h == hour ? minute : 0;
+            for (int m = nextBit(minutes, startMinute); m >= 0 && m < 60; m = nextBit(minutes, m + 1)) {
+                int s = nextBit(seconds, h == hour && m == minute ? second : 0);
+                if (s >= 0 && s < 60) {return h * 3600 + m * 60 + s;}}}
+        return -1;}
+
+    /** Index of the lowest set bit at or above {@code from}, or -1. */
+    private static int nextBit(long mask, int from) {
+        if (from >= 64) {return -1;}
+        long remaining = mask & (-1L << from);
+        return remaining == 0 ? -1 : Long.numberOfTrailingZeros(remaining);}
+
+    public String getExpression() {return expression;}
+
+    @Override
+    public String describe() {return "cron " + expression;}
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof CronSchedule cron && cron.expression.equals(expression);}
+
+    @Override
+    public int hashCode() {return expression.hashCode();}
+
+    @Override
+    public String toString() {return "CronSchedule{" + expression + "}";}
+}
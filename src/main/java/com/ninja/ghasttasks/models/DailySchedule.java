@@ -0,0 +1,31 @@
+package com.ninja.ghasttasks.models;
+
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/** Fires once a day at a fixed local time, with second resolution. */
+public record DailySchedule(LocalTime time) implements Schedule {
+    private static final DateTimeFormatter MINUTES = DateTimeFormatter.ofPattern("HH:mm");
+    private static final DateTimeFormatter SECONDS = DateTimeFormatter.ofPattern("HH:mm:ss");
+
+    /** Parses {@code HH:mm} or {@code HH:mm:ss}. */
+    public static DailySchedule parse(String value) throws DateTimeParseException {
+        String trimmed = value.trim();
+        return new DailySchedule(LocalTime.parse(trimmed, trimmed.length() > 5 ? SECONDS : MINUTES));}
+
+    @Override
+    public ZonedDateTime nextAfter(ZonedDateTime after) {
+        ZonedDateTime candidate = after.toLocalDate().atTime(time).atZone(after.getZone());
+        if (!candidate.isAfter(after)) {candidate = after.toLocalDate().plusDays(1).atTime(time).atZone(after.getZone());}
+        return candidate;}
+
+    @Override
+    public String describe() {return formatTime(time);}
+
+    /** {@code HH:mm}, or {@code HH:mm:ss} when the seconds are not zero. */
+    public static String formatTime(LocalTime time) {
+        return time.getSecond() == 0 ? String.format("%02d:%02d", time.getHour(), time.getMinute())
+                : String.format("%02d:%02d:%02d", time.getHour(), time.getMinute(), time.getSecond());}
+}
@@ -0,0 +1,62 @@
+package com.ninja.ghasttasks.models;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+
+/**
+ * Fires every {@code interval}, aligned each day to {@code start} (midnight by default),
+ * so {@code every: 15m} fires at :00, :15, :30 and :45.
+ */
+public record IntervalSchedule(Duration interval, LocalTime start) implements Schedule {
+    public IntervalSchedule {
+        if (interval.getSeconds() < 1) {throw new IllegalArgumentException("Interval must be at least one second");}}
+
+    /**
+     * Parses durations such as {@code 90s}, {@code 15m}, {@code 2h} or {@code 1h30m}.
+     * A plain number is read as minutes.
+     */
+    public static IntervalSchedule parse(String value, LocalTime start) {
+        String trimmed = value.trim().toLowerCase();
+        if (trimmed.isEmpty()) {throw new IllegalArgumentException("Interval is empty");}
+        if (trimmed.chars().allMatch(Character::isDigit)) {return new IntervalSchedule(Duration.ofMinutes(Long.parseLong(trimmed)), start);}
+        long seconds = 0;
+        long number = -1;
+        for (int i = 0; i < trimmed.length(); i++) {
+            char c = trimmed.charAt(i);
+            if (Character.isDigit(c)) {number = (number < 0 ? 0 : number * 10) + (c - '0');continue;}
+            if (number < 0) {throw new IllegalArgumentException("Invalid interval: " + value);}
+            switch (c) {
+                case 's': seconds += number;break;
+                case 'm': seconds += number * 60;break;
+                case 'h': seconds += number * 3600;break;
+                case 'd': seconds += number * 86400;break;
+                default: throw new IllegalArgumentException("Invalid interval unit '" + c + "' in: " + value);}
+            number = -1;}
+        if (number >= 0) {throw new IllegalArgumentException("Missing unit at the end of interval: " + value);}
+        return new IntervalSchedule(Duration.ofSeconds(seconds), start);}
+
+    @Override
+    public ZonedDateTime nextAfter(ZonedDateTime after) {
+        long step = interval.getSeconds();
+        ZonedDateTime dayStart = after.toLocalDate().atTime(start).atZone(after.getZone());
+        if (dayStart.isAfter(after)) {
+            ZonedDateTime previousStart = after.toLocalDate().minusDays(1).atTime(start).atZone(after.getZone());
+            ZonedDateTime carried = stepFrom(previousStart, after, step);
+            return carried.isBefore(dayStart) ? carried : dayStart;}
+        ZonedDateTime candidate = stepFrom(dayStart, after, step);
+        ZonedDateTime nextDayStart = after.toLocalDate().plusDays(1).atTime(start).atZone(after.getZone());
+        return candidate.isBefore(nextDayStart) ? candidate : nextDayStart;}
+
+    /** The first {@code origin + k * step} strictly after {@code after}. */
+    private static ZonedDateTime stepFrom(ZonedDateTime origin, ZonedDateTime after, long step) {
+        long elapsed = after.toEpochSecond() - origin.toEpochSecond();
+        long steps = elapsed < 0 ? 0 : elapsed / step + 1;
+        return origin.plusSeconds(steps * step);}
+
+    @Override
+    public String describe() {
+        long seconds = interval.getSeconds();
+        String text = seconds % 3600 == 0 ? seconds / 3600 + "h" : seconds % 60 == 0 ? seconds / 60 + "m" : seconds + "s";
+        return "every " + text + (start.equals(LocalTime.MIDNIGHT) ? "" : " from " + DailySchedule.formatTime(start));}
+}
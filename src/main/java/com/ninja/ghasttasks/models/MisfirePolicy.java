@@ -0,0 +1,34 @@
+package com.ninja.ghasttasks.models;
+
+import java.util.List;
+
+/** What the scheduler does with runs that were missed because of lag or downtime. */
+public enum MisfirePolicy {
+    SKIP("skip"),
+    FIRE_ONCE("fire-once"),
+    FIRE_ALL("fire-all");
+    private final String configName;
+    MisfirePolicy(String configName) {
+        this.configName = configName;
+    }
+    public String getConfigName() {
+        return configName;
+    }
+    /**
+     * The runs to catch up from {@code missed} (ascending): none, the latest, or the latest
+     * {@code maxCatchUpRuns}.
+     */
+    public <T> List<T> select(List<T> missed, int maxCatchUpRuns) {
+        if (missed.isEmpty()) {return List.of();}
+        return switch (this) {
+            case SKIP -> List.of();
+            case FIRE_ONCE -> List.of(missed.get(missed.size() - 1));
+            case FIRE_ALL -> List.copyOf(missed.subList(Math.max(0, missed.size() - maxCatchUpRuns), missed.size()));};}
+    /** Parses a config value such as {@code fire-once}; returns {@code fallback} when unknown. */
+    public static MisfirePolicy fromConfig(String value, MisfirePolicy fallback) {
+        if (value == null || value.trim().isEmpty()) {return fallback;}
+        String normalized = value.trim().toLowerCase().replace('_', '-');
+        for (MisfirePolicy policy : values()) {
+            if (policy.configName.equals(normalized)) {return policy;}}
+        return fallback;}
+}
@@ -0,0 +1,12 @@
+package com.ninja.ghasttasks.models;
+
+import java.time.ZonedDateTime;
+
+/** When a task fires: a daily time, a fixed interval or a cron expression. */
+public sealed interface Schedule permits DailySchedule, IntervalSchedule, CronSchedule {
+    /** The first fire time strictly after {@code time}, or null if the schedule never fires again. */
+    ZonedDateTime nextAfter(ZonedDateTime time);
+
+    /** Short human readable form used by {@code /ghasttasks list}. */
+    String describe();
+}
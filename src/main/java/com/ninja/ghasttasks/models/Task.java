@@ -2,27 +2,69 @@ package com.ninja.ghasttasks.models;
 
 import java.time.LocalTime;
 import java.util.List;
+import java.util.Objects;
 
-public class Task {
+/**
+ * Immutable task definition. Edits produce a new instance through the {@code with...}
+ * methods, so a task handed to another thread never changes underneath it.
+ */
+public final class Task {
     private final int id;
-    private LocalTime time;
-    private List<String> commands;
-    private String taskMessage;
+    private final Schedule schedule;
+    private final List<CompiledCommand> compiledCommands;
+    private final List<String> commands;
+    private final String taskMessage;
+    private final int commandSpacingTicks;
+    private final int priority;
+    private final boolean stagger;
+    private final MisfirePolicy misfirePolicy;
 
     public Task(int id, LocalTime time, List<String> commands, String taskMessage) {
+        this(id, time, commands, taskMessage, -1, 0, true, MisfirePolicy.SKIP);}
+    public Task(int id, LocalTime time, List<String> commands, String taskMessage, int commandSpacingTicks, int priority, boolean stagger, MisfirePolicy misfirePolicy) {
+        this(id, new DailySchedule(time), compileAll(commands), taskMessage, commandSpacingTicks, priority, stagger, misfirePolicy);}
+    public Task(int id, Schedule schedule, List<CompiledCommand> commands, String taskMessage, int commandSpacingTicks, int priority, boolean stagger, MisfirePolicy misfirePolicy) {
         this.id = id;
-        this.time = time;
-        this.commands = commands;
-        this.taskMessage = taskMessage;}
+        this.schedule = schedule;
+        this.compiledCommands = List.copyOf(commands);
+        this.commands = compiledCommands.stream().map(CompiledCommand::getSource).toList();
+        this.taskMessage = taskMessage;
+        this.commandSpacingTicks = commandSpacingTicks;
+        this.priority = priority;
+        this.stagger = stagger;
+        this.misfirePolicy = misfirePolicy;}
     public int getId() {return id;}
-    public LocalTime getTime() {return time;}
-    public void setTime(LocalTime time) {this.time = time;}
+    public Schedule getSchedule() {return schedule;}
+    public Task withSchedule(Schedule schedule) {return new Task(id, schedule, compiledCommands, taskMessage, commandSpacingTicks, priority, stagger, misfirePolicy);}
+    /** The daily fire time, or null when the task runs on an interval or cron schedule. */
+    public LocalTime getTime() {return schedule instanceof DailySchedule daily ? daily.time() : null;}
+    /** The command lines as written in the config. Unmodifiable. */
     public List<String> getCommands() {return commands;}
-    public void setCommands(List<String> commands) {this.commands = commands;}
+    /** The commands parsed at load time, ready to dispatch. Unmodifiable. */
+    public List<CompiledCommand> getCompiledCommands() {return compiledCommands;}
+    public Task withCommands(List<CompiledCommand> commands) {return new Task(id, schedule, commands, taskMessage, commandSpacingTicks, priority, stagger, misfirePolicy);}
     public String getTaskMessage()
     {return taskMessage;}
-    public void setTaskMessage(String taskMessage) {this.taskMessage = taskMessage;}
-    public String getFormattedTime() {return String.format("%02d:%02d", time.getHour(), time.getMinute());}
+    public Task withTaskMessage(String taskMessage) {return new Task(id, schedule, compiledCommands, taskMessage, commandSpacingTicks, priority, stagger, misfirePolicy);}
+    /** Ticks to wait between commands, or -1 to use {@code execution.command-spacing-ticks}. */
+    public int getCommandSpacingTicks() {return commandSpacingTicks;}
+    /** Higher priorities fire first when several tasks share a second. */
+    public int getPriority() {return priority;}
+    /** Whether this task may be delayed within {@code execution.stagger-window-seconds}. */
+    public boolean isStaggered() {return stagger;}
+    public MisfirePolicy getMisfirePolicy() {return misfirePolicy;}
+    public String getFormattedTime() {return schedule.describe();}
+    /** Two tasks are equal when their whole definition matches; reloads use this to keep unchanged tasks. */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {return true;}
+        if (!(o instanceof Task other)) {return false;}
+        return id == other.id && commandSpacingTicks == other.commandSpacingTicks && priority == other.priority && stagger == other.stagger
+                && misfirePolicy == other.misfirePolicy && schedule.equals(other.schedule) && compiledCommands.equals(other.compiledCommands) && Objects.equals(taskMessage, other.taskMessage);}
+    @Override
+    public int hashCode() {return Objects.hash(id, schedule, compiledCommands, taskMessage, commandSpacingTicks, priority, stagger, misfirePolicy);}
+    private static List<CompiledCommand> compileAll(List<String> commands) {
+        return commands.stream().map(CompiledCommand::compile).toList();}
     @Override
     public String toString()
     {return "Task{id=" + id + ", time=" + getFormattedTime() + ", commands=" + commands.size() + ", taskMessage='" + taskMessage + "'}";}
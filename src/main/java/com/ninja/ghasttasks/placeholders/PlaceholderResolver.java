@@ -0,0 +1,81 @@
+package com.ninja.ghasttasks.placeholders;
+
+import com.ninja.ghasttasks.GhastTasks;
+import com.ninja.ghasttasks.models.Task;
+import java.time.ZonedDateTime;
+import java.util.function.Function;
+
+/**
+ * A placeholder parameter compiled once into either a fixed snapshot field or a bound
+ * task id. {@link GhastTasksPlaceholders} caches one resolver per distinct parameter
+ * string so repeat requests skip all parsing.
+ */
+@FunctionalInterface
+interface PlaceholderResolver {
+    String resolve(GhastTasks plugin, PlaceholderSnapshot snapshot);
+
+    PlaceholderResolver UNKNOWN = (plugin, snapshot) -> null;
+    PlaceholderResolver INVALID_TASK_ID = (plugin, snapshot) -> "Invalid task ID";
+    PlaceholderResolver TASK_NOT_FOUND = (plugin, snapshot) -> "Task not found";
+
+    /**
+     * Compiles {@code params} against the currently loaded tasks. Ids that are not numbers or
+     * not loaded become negative entries, so the cache must be cleared when tasks change.
+     */
+    static PlaceholderResolver compile(GhastTasks plugin, String params) {
+        switch (params.toLowerCase()) {
+            case "next_task_id": return fixed(snapshot -> snapshot.nextTaskId);
+            case "next_task_time": return fixed(snapshot -> snapshot.nextTaskTime);
+            case "countdown_seconds": return fixed(snapshot -> snapshot.countdownSeconds);
+            case "countdown_minutes": return fixed(snapshot -> snapshot.countdownMinutes);
+            case "countdown_hours": return fixed(snapshot -> snapshot.countdownHours);
+            case "countdown_formatted": return fixed(snapshot -> snapshot.countdownFormatted);
+            case "countdown_simple": return fixed(snapshot -> snapshot.countdownSimple);
+            case "countdown_detailed": return fixed(snapshot -> snapshot.countdownDetailed);
+            case "tasks_total": return fixed(snapshot -> snapshot.tasksTotal);
+            case "next_task_commands": return fixed(snapshot -> snapshot.nextTaskCommands);
+            case "time_until_minutes_only": return fixed(snapshot -> snapshot.minutesOnly);
+            case "time_until_hours_only": return fixed(snapshot -> snapshot.hoursOnly);
+            case "time_until_seconds_only": return fixed(snapshot -> snapshot.secondsOnly);
+            default: break;}
+        if (params.equals("next_taskmsg")) {return fixed(snapshot -> snapshot.nextTaskMessage);}
+        // Individual task placeholders like "task_1_msg" and "task_1_countdown"
+        if (params.startsWith("task_") && params.endsWith("_msg")) {
+            Integer taskId = parseTaskId(params.substring(5, params.length() - 4));
+            if (taskId == null) {return INVALID_TASK_ID;}
+            return plugin.getTaskManager().getTask(taskId) == null ? TASK_NOT_FOUND : new TaskMessage(taskId);}
+        if (params.startsWith("task_") && params.endsWith("_countdown")) {
+            Integer taskId = parseTaskId(params.substring(5, params.length() - 10));
+            if (taskId == null) {return INVALID_TASK_ID;}
+            return plugin.getTaskManager().getTask(taskId) == null ? TASK_NOT_FOUND : new TaskCountdown(taskId);}
+        return UNKNOWN;}
+
+    private static PlaceholderResolver fixed(Function<PlaceholderSnapshot, String> field) {
+        return (plugin, snapshot) -> field.apply(snapshot);}
+
+    private static Integer parseTaskId(String taskIdStr) {
+        try {return Integer.parseInt(taskIdStr);} catch (NumberFormatException e) {return null;}}
+
+    record TaskMessage(int taskId) implements PlaceholderResolver {
+        @Override
+        public String resolve(GhastTasks plugin, PlaceholderSnapshot snapshot) {
+            Task task = plugin.getTaskManager().getTask(taskId);
+            if (task == null) {return "Task not found";}
+            String taskMessage = task.getTaskMessage();
+            if (taskMessage == null || taskMessage.trim().isEmpty()) {return "No message set";}
+            return taskMessage;}
+    }
+
+    record TaskCountdown(int taskId) implements PlaceholderResolver {
+        @Override
+        public String resolve(GhastTasks plugin, PlaceholderSnapshot snapshot) {
+            Task task = plugin.getTaskManager().getTask(taskId);
+            if (task == null) {return "Task not found";}
+            ZonedDateTime fireTime = task.getSchedule().nextAfter(snapshot.now);
+            if (fireTime == null) {return "N/A";}
+            String countdown = PlaceholderSnapshot.formatCountdown(fireTime.toEpochSecond() - snapshot.now.toEpochSecond());
+            String taskMessage = task.getTaskMessage();
+            if (taskMessage == null || taskMessage.trim().isEmpty()) {return countdown;}
+            return taskMessage + " " + countdown;}
+    }
+}
@@ -0,0 +1,74 @@
+package com.ninja.ghasttasks.placeholders;
+
+import com.ninja.ghasttasks.managers.TaskTimeIndex;
+import com.ninja.ghasttasks.models.DailySchedule;
+import com.ninja.ghasttasks.models.Task;
+import java.time.ZonedDateTime;
+
+/**
+ * Pre-formatted values of every global (player independent) placeholder for a single
+ * wall-clock second. Built at most once per second by {@link GhastTasksPlaceholders}
+ * and replaced wholesale, so readers only ever see a consistent set of values.
+ */
+final class PlaceholderSnapshot {
+    final long generation;
+    final long epochSecond;
+    final ZonedDateTime now;
+    final Task nextTask;
+    final String nextTaskId;
+    final String nextTaskTime;
+    final String nextTaskCommands;
+    final String tasksTotal;
+    final String countdownSeconds;
+    final String countdownMinutes;
+    final String countdownHours;
+    final String countdownFormatted;
+    final String countdownSimple;
+    final String countdownDetailed;
+    final String minutesOnly;
+    final String hoursOnly;
+    final String secondsOnly;
+    final String nextTaskMessage;
+
+    PlaceholderSnapshot(long generation, long epochSecond, ZonedDateTime now, TaskTimeIndex.NextFire nextFire, int tasksTotal) {
+        this.generation = generation;
+        this.epochSecond = epochSecond;
+        this.now = now;
+        this.nextTask = nextFire == null ? null : nextFire.task();
+        this.tasksTotal = String.valueOf(tasksTotal);
+        if (nextTask == null) {
+            nextTaskId = nextTaskTime = nextTaskCommands = "N/A";
+            countdownSeconds = countdownMinutes = countdownHours = "N/A";
+            countdownFormatted = countdownSimple = countdownDetailed = "N/A";
+            minutesOnly = hoursOnly = secondsOnly = nextTaskMessage = "N/A";
+            return;}
+        long secondsUntil = nextFire.secondsFrom(now);
+        nextTaskId = String.valueOf(nextTask.getId());
+        nextTaskTime = DailySchedule.formatTime(nextFire.fireTime().toLocalTime());
+        nextTaskCommands = String.valueOf(nextTask.getCommands().size());
+        countdownSeconds = String.valueOf(secondsUntil);
+        countdownMinutes = String.valueOf(secondsUntil / 60);
+        countdownHours = String.valueOf(secondsUntil / 3600);
+        countdownFormatted = formatCountdown(secondsUntil);
+        countdownSimple = formatSimpleCountdown(secondsUntil);
+        countdownDetailed = "Task " + nextTask.getId() + " in " + countdownSimple;
+        minutesOnly = String.valueOf((secondsUntil / 60) % 60);
+        hoursOnly = String.valueOf((secondsUntil / 3600) % 24);
+        secondsOnly = String.valueOf(secondsUntil % 60);
+        String message = nextTask.getTaskMessage();
+        nextTaskMessage = message == null || message.trim().isEmpty() ? "" : message + " " + countdownFormatted;}
+
+    boolean hasNextTask() {return nextTask != null;}
+
+    static String formatCountdown(long totalSeconds) {
+        if (totalSeconds <= 0) {return "00:00:00";}
+        long hours = totalSeconds / 3600;long minutes = (totalSeconds % 3600) / 60;long seconds = totalSeconds % 60;
+        return String.format("%02d:%02d:%02d", hours, minutes, seconds);}
+
+    static String formatSimpleCountdown(long totalSeconds) {
+        if (totalSeconds <= 0) {return "Now";}
+        long hours = totalSeconds / 3600;long minutes = (totalSeconds % 3600) / 60;long seconds = totalSeconds % 60;
+        if (hours > 0) {return hours + "h " + minutes + "m";}
+        else if (minutes > 0) {return minutes + "m " + seconds + "s";}
+        else {return seconds + "s";}}
+}
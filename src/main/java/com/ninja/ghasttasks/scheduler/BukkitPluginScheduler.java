@@ -0,0 +1,30 @@
+package com.ninja.ghasttasks.scheduler;
+
+import com.ninja.ghasttasks.GhastTasks;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
+import org.bukkit.scheduler.BukkitTask;
+
+/** Paper and Spigot: everything runs on the main thread through the Bukkit scheduler. */
+final class BukkitPluginScheduler implements PluginScheduler {
+    private final GhastTasks plugin;
+
+    BukkitPluginScheduler(GhastTasks plugin) {this.plugin = plugin;}
+
+    @Override
+    public void runGlobal(Runnable task) {Bukkit.getScheduler().runTask(plugin, task);}
+
+    @Override
+    public TaskHandle runGlobalTimer(Runnable task, long delayTicks, long periodTicks) {
+        BukkitTask scheduled = Bukkit.getScheduler().runTaskTimer(plugin, task, delayTicks, periodTicks);
+        return scheduled::cancel;}
+
+    @Override
+    public boolean runFor(Entity entity, Runnable task, Runnable retired) {
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            if (entity.isValid()) {task.run();} else if (retired != null) {retired.run();}});
+        return true;}
+
+    @Override
+    public boolean isRegionized() {return false;}
+}
@@ -0,0 +1,29 @@
+package com.ninja.ghasttasks.scheduler;
+
+import com.ninja.ghasttasks.GhastTasks;
+import io.papermc.paper.threadedregions.scheduler.ScheduledTask;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Entity;
+
+/** Folia: server-wide work on the global region scheduler, entity work on the entity's scheduler. */
+final class FoliaPluginScheduler implements PluginScheduler {
+    private final GhastTasks plugin;
+
+    FoliaPluginScheduler(GhastTasks plugin) {this.plugin = plugin;}
+
+    @Override
+    public void runGlobal(Runnable task) {Bukkit.getGlobalRegionScheduler().execute(plugin, task);}
+
+    @Override
+    public TaskHandle runGlobalTimer(Runnable task, long delayTicks, long periodTicks) {
+        // Folia rejects an initial delay below one tick
+        ScheduledTask scheduled = Bukkit.getGlobalRegionScheduler().runAtFixedRate(plugin, ignored -> task.run(), Math.max(1L, delayTicks), periodTicks);
+        return scheduled::cancel;}
+
+    @Override
+    public boolean runFor(Entity entity, Runnable task, Runnable retired) {
+        return entity.getScheduler().run(plugin, ignored -> task.run(), retired) != null;}
+
+    @Override
+    public boolean isRegionized() {return true;}
+}
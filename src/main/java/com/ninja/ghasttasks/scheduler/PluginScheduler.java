@@ -0,0 +1,51 @@
+package com.ninja.ghasttasks.scheduler;
+
+import com.ninja.ghasttasks.GhastTasks;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Entity;
+
+/**
+ * Where the plugin runs work that must happen on a server thread. On Paper that is the
+ * main thread. On Folia there is no main thread: server-wide work goes to the global
+ * region and work on an entity to the region that owns it. Use {@link #create(GhastTasks)}
+ * to get the right one for the running server.
+ */
+public interface PluginScheduler {
+    /** Runs {@code task} on the next tick, on the main thread or Folia's global region. */
+    void runGlobal(Runnable task);
+
+    /** Runs {@code task} every {@code periodTicks}, starting after {@code delayTicks}, where {@link #runGlobal} would. */
+    TaskHandle runGlobalTimer(Runnable task, long delayTicks, long periodTicks);
+
+    /**
+     * Runs {@code task} on the thread that owns {@code entity}. If the entity is removed
+     * before it runs, {@code retired} runs instead, if given. Returns false when the
+     * entity is already gone and neither will run.
+     */
+    boolean runFor(Entity entity, Runnable task, Runnable retired);
+
+    /** Whether work on one entity may run on a different thread from the global work. */
+    boolean isRegionized();
+
+    /** Runs {@code task} where it may talk to {@code sender}: its own region for an entity, the global one otherwise. */
+    default void runFor(CommandSender sender, Runnable task) {
+        if (sender instanceof Entity entity) {runFor(entity, task, null);} else {runGlobal(task);}}
+
+    static PluginScheduler create(GhastTasks plugin) {
+        if (isFolia()) {
+            plugin.getLogger().info("Folia detected, using the region schedulers");
+            return new FoliaPluginScheduler(plugin);}
+        return new BukkitPluginScheduler(plugin);}
+
+    private static boolean isFolia() {
+        try {
+            Class.forName("io.papermc.paper.threadedregions.RegionizedServer");
+            return true;
+        } catch (ClassNotFoundException e) {return false;}}
+
+    /** A repeating task that can be stopped. */
+    @FunctionalInterface
+    interface TaskHandle {
+        void cancel();
+    }
+}
@@ -0,0 +1,131 @@
+package com.ninja.ghasttasks.managers;
+
+import org.junit.jupiter.api.Test;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TimingWheelTest {
+    private static final long START = 1_700_000_000L;
+    /** Seconds covered by the four levels; later deadlines go to the overflow queue. */
+    private static final long SPAN = 1L << 24;
+
+    /** Turns the wheel one second at a time and returns the second each value came due. */
+    private static List<long[]> turn(TimingWheel<String> wheel, long until) {
+        List<long[]> due = new ArrayList<>();
+        for (long now = wheel.getCurrent() + 1; now <= until; now++) {
+            for (TimingWheel.Entry<String> entry : wheel.advanceTo(now)) {due.add(new long[] {now, entry.deadline()});}}
+        return due;}
+
+    /** Turns the wheel in steps of up to {@code step} seconds and checks every entry comes due exactly at its deadline. */
+    private static void assertFiresOnTime(TimingWheel<String> wheel, long until, long step, int expected) {
+        int fired = 0;
+        for (long now = wheel.getCurrent(); now < until; ) {
+            long next = Math.min(until, now + step);
+            for (TimingWheel.Entry<String> entry : wheel.advanceTo(next)) {
+                assertTrue(entry.deadline() > now && entry.deadline() <= next, "entry for " + entry.deadline() + " came due in (" + now + ", " + next + "]");
+                fired++;}
+            now = next;}
+        assertEquals(expected, fired);}
+
+    @Test
+    void rejectsDeadlinesNotInTheFuture() {
+        TimingWheel<String> wheel = new TimingWheel<>(START);
+        assertNull(wheel.add("now", START));
+        assertNull(wheel.add("past", START - 1));
+        assertEquals(0, wheel.size());
+        assertEquals(Long.MAX_VALUE, wheel.nextDeadline());}
+
+    @Test
+    void firesEntriesOnEachSideOfEveryLevelBoundary() {
+        TimingWheel<String> wheel = new TimingWheel<>(START);
+        long[] deltas = {1, 63, 64, 65, 4095, 4096, 4097, 262_143, 262_144, 262_145};
+        for (long delta : deltas) {wheel.add("+" + delta, START + delta);}
+        List<long[]> due = turn(wheel, START + 262_145);
+        assertEquals(deltas.length, due.size());
+        for (int i = 0; i < deltas.length; i++) {
+            assertEquals(START + deltas[i], due.get(i)[0], "came due at the wrong second");
+            assertEquals(START + deltas[i], due.get(i)[1]);}
+        assertEquals(0, wheel.size());}
+
+    @Test
+    void cascadesFromAnUnalignedStart() {
+        long start = START + 37;
+        TimingWheel<String> wheel = new TimingWheel<>(start);
+        for (long delta = 1; delta < 300_000; delta = delta * 3 + 1) {wheel.add("+" + delta, start + delta);}
+        int added = wheel.size();
+        assertFiresOnTime(wheel, start + 300_000, 1, added);}
+
+    @Test
+    void nextDeadlineIsTheEarliestOnAnyLevel() {
+        TimingWheel<String> wheel = new TimingWheel<>(START);
+        wheel.add("far", START + 100_000);
+        wheel.add("mid", START + 5_000);
+        assertEquals(START + 5_000, wheel.nextDeadline());
+        wheel.add("near", START + 10);
+        assertEquals(START + 10, wheel.nextDeadline());
+        wheel.advanceTo(START + 10);
+        assertEquals(START + 5_000, wheel.nextDeadline());}
+
+    @Test
+    void promotesOverflowEntriesWhenTheyComeInRange() {
+        TimingWheel<String> wheel = new TimingWheel<>(START);
+        wheel.add("edge", START + SPAN - 1);
+        wheel.add("overflow", START + SPAN);
+        wheel.add("far overflow", START + SPAN + SPAN / 2 + 17);
+        assertEquals(3, wheel.size());
+        assertFiresOnTime(wheel, START + 2 * SPAN, 4096, 3);
+        assertEquals(0, wheel.size());}
+
+    @Test
+    void jumpsOverLongGapsWithoutLosingEntries() {
+        TimingWheel<String> wheel = new TimingWheel<>(START);
+        wheel.add("a", START + 10);
+        wheel.add("b", START + 1_000_000);
+        wheel.add("c", START + SPAN + 5);
+        List<TimingWheel.Entry<String>> due = wheel.advanceTo(START + 1_000_000);
+        assertEquals(2, due.size());
+        assertEquals("a", due.get(0).value());
+        assertEquals("b", due.get(1).value());
+        assertEquals(1, wheel.size());
+        assertEquals(START + SPAN + 5, wheel.nextDeadline());
+        assertFiresOnTime(wheel, START + SPAN + 5, 4096, 1);}
+
+    @Test
+    void removesEntriesFromEveryLevelAndTheOverflow() {
+        TimingWheel<String> wheel = new TimingWheel<>(START);
+        long[] deltas = {5, 500, 50_000, 5_000_000, SPAN + 5};
+        List<TimingWheel.Entry<String>> entries = new ArrayList<>();
+        for (long delta : deltas) {entries.add(wheel.add("+" + delta, START + delta));}
+        TimingWheel.Entry<String> kept = wheel.add("kept", START + 50_000);
+        for (TimingWheel.Entry<String> entry : entries) {assertTrue(wheel.remove(entry));}
+        assertEquals(1, wheel.size());
+        assertFalse(wheel.remove(entries.get(0)), "removing twice");
+        assertEquals(START + 50_000, wheel.nextDeadline());
+        List<TimingWheel.Entry<String>> due = wheel.advanceTo(START + SPAN + 10);
+        assertEquals(1, due.size());
+        assertSame(kept, due.get(0));}
+
+    @Test
+    void removesEntriesAfterTheyCascaded() {
+        TimingWheel<String> wheel = new TimingWheel<>(START);
+        TimingWheel.Entry<String> entry = wheel.add("cascading", START + 300_000);
+        assertFiresOnTime(wheel, START + 299_990, 4096, 0);
+        assertEquals(1, wheel.size());
+        assertTrue(wheel.remove(entry));
+        assertEquals(0, wheel.size());
+        assertTrue(wheel.advanceTo(START + 300_010).isEmpty());}
+
+    @Test
+    void doesNotRemoveAnEntryThatAlreadyCameDue() {
+        TimingWheel<String> wheel = new TimingWheel<>(START);
+        TimingWheel.Entry<String> entry = wheel.add("due", START + 3);
+        assertEquals(1, wheel.advanceTo(START + 3).size());
+        assertFalse(wheel.remove(entry));
+        assertEquals(0, wheel.size());}
+}
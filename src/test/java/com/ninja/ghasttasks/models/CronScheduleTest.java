@@ -0,0 +1,98 @@
+package com.ninja.ghasttasks.models;
+
+import org.junit.jupiter.api.Test;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CronScheduleTest {
+    private static final ZoneId UTC = ZoneId.of("UTC");
+    /** Springs forward 2024-03-10 02:00 -> 03:00 and falls back 2024-11-03 02:00 -> 01:00. */
+    private static final ZoneId NEW_YORK = ZoneId.of("America/New_York");
+
+    private static ZonedDateTime at(String localDateTime, ZoneId zone) {return LocalDateTime.parse(localDateTime).atZone(zone);}
+
+    private static List<ZonedDateTime> fires(Schedule schedule, ZonedDateTime from, ZonedDateTime to) {
+        List<ZonedDateTime> fires = new ArrayList<>();
+        for (ZonedDateTime next = schedule.nextAfter(from); next != null && !next.isAfter(to); next = schedule.nextAfter(next)) {fires.add(next);}
+        return fires;}
+
+    @Test
+    void firesStrictlyAfterTheGivenTime() {
+        CronSchedule cron = CronSchedule.parse("30 14 * * *");
+        assertEquals(at("2024-05-01T14:30:00", UTC), cron.nextAfter(at("2024-05-01T14:29:59", UTC)));
+        assertEquals(at("2024-05-02T14:30:00", UTC), cron.nextAfter(at("2024-05-01T14:30:00", UTC)));}
+
+    @Test
+    void supportsSecondsStepsRangesAndLists() {
+        CronSchedule cron = CronSchedule.parse("*/20 0-1 9,17 * * *");
+        List<ZonedDateTime> fires = fires(cron, at("2024-05-01T00:00:00", UTC), at("2024-05-01T23:59:59", UTC));
+        assertEquals(12, fires.size());
+        assertEquals(at("2024-05-01T09:00:00", UTC), fires.get(0));
+        assertEquals(at("2024-05-01T09:01:40", UTC), fires.get(5));
+        assertEquals(at("2024-05-01T17:00:00", UTC), fires.get(6));}
+
+    @Test
+    void matchesDayOfMonthOrWeekdayWhenBothAreRestricted() {
+        // The 13th, or any Friday; 2024-09-13 is a Friday, 2024-09-06 and 2024-09-20 are Fridays
+        CronSchedule cron = CronSchedule.parse("0 0 13 * 5");
+        List<ZonedDateTime> fires = fires(cron, at("2024-09-01T00:00:00", UTC), at("2024-09-30T23:59:59", UTC));
+        assertEquals(List.of(at("2024-09-06T00:00:00", UTC), at("2024-09-13T00:00:00", UTC), at("2024-09-20T00:00:00", UTC),
+                at("2024-09-27T00:00:00", UTC)), fires);}
+
+    @Test
+    void treatsSevenAsSunday() {
+        assertEquals(at("2024-05-05T08:00:00", UTC), CronSchedule.parse("0 8 * * 7").nextAfter(at("2024-05-01T00:00:00", UTC)));
+        assertEquals(at("2024-05-05T08:00:00", UTC), CronSchedule.parse("0 8 * * 0").nextAfter(at("2024-05-01T00:00:00", UTC)));}
+
+    @Test
+    void findsLeapDayAndGivesUpOnImpossibleDates() {
+        assertEquals(at("2028-02-29T00:00:00", UTC), CronSchedule.parse("0 0 29 2 *").nextAfter(at("2024-03-01T00:00:00", UTC)));
+        assertNull(CronSchedule.parse("0 0 30 2 *").nextAfter(at("2024-01-01T00:00:00", UTC)));}
+
+    @Test
+    void rejectsMalformedExpressions() {
+        assertThrows(IllegalArgumentException.class, () -> CronSchedule.parse("* * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronSchedule.parse("60 * * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronSchedule.parse("5-1 * * * *"));
+        assertThrows(IllegalArgumentException.class, () -> CronSchedule.parse("a * * * *"));}
+
+    @Test
+    void runsOnceAtTheShiftedTimeWhenTheSlotFallsInTheSpringForwardGap() {
+        CronSchedule cron = CronSchedule.parse("30 2 * * *");
+        List<ZonedDateTime> fires = fires(cron, at("2024-03-09T12:00:00", NEW_YORK), at("2024-03-11T12:00:00", NEW_YORK));
+        assertEquals(List.of(at("2024-03-10T03:30:00", NEW_YORK), at("2024-03-11T02:30:00", NEW_YORK)), fires);
+        assertEquals(3, fires.get(0).getHour());}
+
+    @Test
+    void keepsSteppingThroughTheSpringForwardGap() {
+        CronSchedule cron = CronSchedule.parse("*/30 * * * *");
+        List<ZonedDateTime> fires = fires(cron, at("2024-03-10T01:00:00", NEW_YORK), at("2024-03-10T04:00:00", NEW_YORK));
+        // 02:00 does not exist and lands on 03:00; 02:30 would come after that, so it is not run twice
+        assertEquals(List.of(at("2024-03-10T01:30:00", NEW_YORK), at("2024-03-10T03:00:00", NEW_YORK), at("2024-03-10T03:30:00", NEW_YORK),
+                at("2024-03-10T04:00:00", NEW_YORK)), fires);
+        for (int i = 1; i < fires.size(); i++) {assertTrue(fires.get(i).isAfter(fires.get(i - 1)), "fire times must increase");}}
+
+    @Test
+    void runsOnceWhenTheSlotIsRepeatedByTheFallBackOverlap() {
+        CronSchedule cron = CronSchedule.parse("30 1 * * *");
+        List<ZonedDateTime> fires = fires(cron, at("2024-11-02T12:00:00", NEW_YORK), at("2024-11-04T12:00:00", NEW_YORK));
+        assertEquals(2, fires.size());
+        assertEquals(at("2024-11-03T01:30:00", NEW_YORK), fires.get(0));
+        assertEquals(at("2024-11-04T01:30:00", NEW_YORK), fires.get(1));}
+
+    @Test
+    void continuesTheSameDayWhenStartingInTheRepeatedFallBackHour() {
+        // 01:30 in the second pass (EST); the remaining 01:xx slots resolve to the first pass (EDT), which is already over
+        ZonedDateTime after = at("2024-11-03T01:30:00", NEW_YORK).withLaterOffsetAtOverlap();
+        ZonedDateTime next = CronSchedule.parse("* * * * *").nextAfter(after);
+        assertEquals(at("2024-11-03T02:00:00", NEW_YORK), next);
+        assertEquals(30 * 60, next.toEpochSecond() - after.toEpochSecond());}
+}
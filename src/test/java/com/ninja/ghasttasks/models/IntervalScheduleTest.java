@@ -0,0 +1,48 @@
+package com.ninja.ghasttasks.models;
+
+import org.junit.jupiter.api.Test;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IntervalScheduleTest {
+    private static final ZoneId UTC = ZoneId.of("UTC");
+
+    private static ZonedDateTime at(String localDateTime) {return LocalDateTime.parse(localDateTime).atZone(UTC);}
+
+    @Test
+    void parsesUnitsAndPlainMinutes() {
+        assertEquals(Duration.ofSeconds(90), IntervalSchedule.parse("90s", LocalTime.MIDNIGHT).interval());
+        assertEquals(Duration.ofMinutes(90), IntervalSchedule.parse("1h30m", LocalTime.MIDNIGHT).interval());
+        assertEquals(Duration.ofMinutes(15), IntervalSchedule.parse("15", LocalTime.MIDNIGHT).interval());
+        assertEquals(Duration.ofDays(2), IntervalSchedule.parse("2d", LocalTime.MIDNIGHT).interval());
+        assertThrows(IllegalArgumentException.class, () -> IntervalSchedule.parse("15x", LocalTime.MIDNIGHT));
+        assertThrows(IllegalArgumentException.class, () -> IntervalSchedule.parse("1h30", LocalTime.MIDNIGHT));
+        assertThrows(IllegalArgumentException.class, () -> IntervalSchedule.parse("0s", LocalTime.MIDNIGHT));}
+
+    @Test
+    void alignsToTheDailyStart() {
+        IntervalSchedule every15 = IntervalSchedule.parse("15m", LocalTime.MIDNIGHT);
+        assertEquals(at("2024-05-01T10:15:00"), every15.nextAfter(at("2024-05-01T10:07:12")));
+        assertEquals(at("2024-05-01T10:30:00"), every15.nextAfter(at("2024-05-01T10:15:00")));
+        IntervalSchedule offset = IntervalSchedule.parse("1h", LocalTime.of(0, 20));
+        assertEquals(at("2024-05-01T10:20:00"), offset.nextAfter(at("2024-05-01T09:20:00")));}
+
+    @Test
+    void restartsAtTheStartEachDayWhenTheIntervalDoesNotDivideIt() {
+        IntervalSchedule every7h = IntervalSchedule.parse("7h", LocalTime.MIDNIGHT);
+        assertEquals(at("2024-05-01T21:00:00"), every7h.nextAfter(at("2024-05-01T14:00:00")));
+        assertEquals(at("2024-05-02T00:00:00"), every7h.nextAfter(at("2024-05-01T21:00:00")));}
+
+    @Test
+    void carriesYesterdaysStepsUntilTodaysStart() {
+        IntervalSchedule every5h = IntervalSchedule.parse("5h", LocalTime.of(6, 0));
+        // 06:00 yesterday + 5h steps: ..., 21:00, 02:00 today, then 06:00 restarts the sequence
+        assertEquals(at("2024-05-02T02:00:00"), every5h.nextAfter(at("2024-05-02T00:30:00")));
+        assertEquals(at("2024-05-02T06:00:00"), every5h.nextAfter(at("2024-05-02T02:00:00")));}
+}
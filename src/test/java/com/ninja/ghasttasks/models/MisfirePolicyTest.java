@@ -0,0 +1,36 @@
+package com.ninja.ghasttasks.models;
+
+import org.junit.jupiter.api.Test;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class MisfirePolicyTest {
+    private static final List<Integer> MISSED = List.of(1, 2, 3, 4, 5);
+
+    @Test
+    void skipRunsNothing() {
+        assertEquals(List.of(), MisfirePolicy.SKIP.select(MISSED, 7));}
+
+    @Test
+    void fireOnceRunsOnlyTheLatestMissedSlot() {
+        assertEquals(List.of(5), MisfirePolicy.FIRE_ONCE.select(MISSED, 7));
+        assertEquals(List.of(5), MisfirePolicy.FIRE_ONCE.select(MISSED, 1));}
+
+    @Test
+    void fireAllRunsTheLatestUpToTheCatchUpLimit() {
+        assertEquals(MISSED, MisfirePolicy.FIRE_ALL.select(MISSED, 7));
+        assertEquals(MISSED, MisfirePolicy.FIRE_ALL.select(MISSED, 5));
+        assertEquals(List.of(4, 5), MisfirePolicy.FIRE_ALL.select(MISSED, 2));}
+
+    @Test
+    void nothingMissedRunsNothing() {
+        for (MisfirePolicy policy : MisfirePolicy.values()) {assertEquals(List.of(), policy.select(List.<Integer>of(), 7));}}
+
+    @Test
+    void parsesConfigNames() {
+        assertEquals(MisfirePolicy.FIRE_ONCE, MisfirePolicy.fromConfig("fire-once", MisfirePolicy.SKIP));
+        assertEquals(MisfirePolicy.FIRE_ALL, MisfirePolicy.fromConfig(" FIRE_ALL ", MisfirePolicy.SKIP));
+        assertEquals(MisfirePolicy.SKIP, MisfirePolicy.fromConfig("sometimes", MisfirePolicy.SKIP));
+        assertEquals(MisfirePolicy.FIRE_ONCE, MisfirePolicy.fromConfig(null, MisfirePolicy.FIRE_ONCE));}
+}